@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+// 静的ファイル(css・jsなど)の圧縮済みファイル(.gz・.br)をビルド時に作る(pom.xml の process-classes で実行する)
+// Spring MVC(spring.web.resources.chain.compressed)は、ブラウザが対応していれば元のファイルの代わりにこれらを返す
+// .br は brotli4j で作る(JDKにはBrotliの圧縮処理がないため) ビルド環境で使えない場合はビルドを失敗させる
+// 実行例: java -cp <brotli4jのjar> src/build/PrecompressStatic.java target/classes/static
+public class PrecompressStatic {
+
+    // 圧縮するファイルの拡張子と、最小サイズ(これより小さいファイルは圧縮しても効果がない)
+    private static final Set<String> EXTENSIONS = Set.of("css", "js", "svg", "json", "txt", "map", "html");
+    private static final long MIN_SIZE = 1024;
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args[0]);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        // ネイティブライブラリを読み込めない場合は例外になる(.br を作らずにビルドを続けない)
+        Brotli4jLoader.ensureAvailability();
+        Encoder.Parameters brotliParameters = new Encoder.Parameters().setQuality(11);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).filter(PrecompressStatic::isTarget).toList();
+        }
+        for (Path file : files) {
+            Path gz = sibling(file, ".gz");
+            if (isStale(file, gz)) {
+                gzip(file, gz);
+                report(file, gz);
+            }
+            Path br = sibling(file, ".br");
+            if (isStale(file, br)) {
+                Files.write(br, Encoder.compress(Files.readAllBytes(file), brotliParameters));
+                report(file, br);
+            }
+        }
+    }
+
+    private static boolean isTarget(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        try {
+            return dot > 0 && EXTENSIONS.contains(name.substring(dot + 1)) && Files.size(file) >= MIN_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    // 圧縮済みファイルがない、または元のファイルの方が新しい場合は作り直す
+    private static boolean isStale(Path file, Path compressed) throws IOException {
+        return !Files.exists(compressed)
+                || Files.getLastModifiedTime(compressed).compareTo(Files.getLastModifiedTime(file)) < 0;
+    }
+
+    private static void gzip(Path file, Path gz) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+                OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 64 * 1024) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+            in.transferTo(out);
+        }
+    }
+
+    private static void report(Path file, Path compressed) throws IOException {
+        System.out.printf("[precompress] %s: %,d -> %,d bytes%n", compressed.getFileName(), Files.size(file),
+                Files.size(compressed));
+    }
+}
@@ -0,0 +1,122 @@
+package com.techacademy.benchmark;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.techacademy.DailyReportSystemApplication;
+
+// ベンチマーク用にアプリケーションを起動し、指定した件数のデータを登録する
+// DBはH2(MySQLモード)のインメモリDBを使う 日報の件数は -p reports=1000,100000,1000000 で指定する
+@State(Scope.Benchmark)
+public class BenchmarkApplication {
+
+    // ログインに使う従業員(管理者・一般)
+    public static final String ADMIN_CODE = "1";
+    public static final String GENERAL_CODE = "2";
+    // 従業員のパスワード
+    public static final String PASSWORD = "password1";
+
+    // 登録する日報の件数
+    @Param({ "1000" })
+    public int reports;
+
+    // 日報を書く従業員の人数
+    @Param({ "100" })
+    public int employees;
+
+    // 日報の内容に使う語句(全文検索のベンチマークで検索できるように、日報ごとに組み合わせを変える)
+    static final String[] WORDS = { "会議", "設計", "実装", "テスト", "レビュー", "障害対応", "顧客訪問", "資料作成", "進捗報告",
+            "研修", "見積", "打ち合わせ", "リリース", "調査", "データ移行", "問い合わせ対応" };
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // application.properties より優先させるため、コマンドライン引数として渡す
+        context = new SpringApplicationBuilder(DailyReportSystemApplication.class).run(arguments().toArray(new String[0]));
+        seed();
+    }
+
+    // 起動時のコマンドライン引数 設定を変えて比較するベンチマークはサブクラスで追加する
+    protected List<String> arguments() {
+        List<String> arguments = arguments("benchmark");
+        // 従業員・日報はこのクラスで登録するため、初期データは登録しない
+        arguments.add("--app.db.seed.enabled=false");
+        return arguments;
+    }
+
+    // H2(MySQLモード)のインメモリDBで起動する引数 テーブルはFlywayで作成する
+    static List<String> arguments(String database) {
+        return new ArrayList<String>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--report.export.fetch-size=1000",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--server.port=0",
+                "--app.tomcat.ajp.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.org.thymeleaf=ERROR"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    // 従業員と日報を登録する
+    private void seed() {
+        JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        String password = getBean(PasswordEncoder.class).encode(PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> employeeRows = new ArrayList<Object[]>();
+        for (int i = 1; i <= employees; i++) {
+            String role = ADMIN_CODE.equals(String.valueOf(i)) ? "ADMIN" : "GENERAL";
+            employeeRows.add(new Object[] { String.valueOf(i), "従業員" + i, role, password, now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at)"
+                + " VALUES (?, ?, ?, ?, 0, ?, ?)", employeeRows);
+
+        // 従業員ごとに1日1件ずつ、過去に遡って登録する
+        LocalDate today = LocalDate.now();
+        List<Object[]> reportRows = new ArrayList<Object[]>();
+        for (int i = 0; i < reports; i++) {
+            String employeeCode = String.valueOf(i % employees + 1);
+            Date reportDate = Date.valueOf(today.minusDays(i / employees));
+            String content = WORDS[i % WORDS.length] + "と" + WORDS[i / WORDS.length % WORDS.length] + "を行いました。"
+                    + "明日は" + WORDS[i / 7 % WORDS.length] + "の予定です。(" + i + ")";
+            reportRows.add(new Object[] { reportDate, "タイトル" + i, content, employeeCode, now, now });
+            if (reportRows.size() == 1000 || i == reports - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO reports(report_date, title, content, employee_code, delete_flg,"
+                        + " created_at, updated_at) VALUES (?, ?, ?, ?, 0, ?, ?)", reportRows);
+                reportRows.clear();
+            }
+        }
+    }
+}
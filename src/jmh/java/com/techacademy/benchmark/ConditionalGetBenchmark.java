@@ -0,0 +1,98 @@
+package com.techacademy.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.techacademy.service.EmployeeService;
+import com.techacademy.service.UserDetail;
+
+// 日報一覧・詳細画面の条件付きGET ETagを送らない場合(画面を作って返す)と、送った場合(304)の比較
+// 1リクエストあたりの処理時間と、レスポンスの本文のバイト数を出力する CPU時間の差は -prof gc の割り当て量も参考にする
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionalGetBenchmark {
+
+    // trueの場合は前回のETagを送る(If-None-Match)
+    @Param({ "false", "true" })
+    public boolean revalidate;
+
+    private MockMvc mockMvc;
+    private UserDetail general;
+    private MockHttpSession session;
+    private Integer reportId;
+    private String listEtag;
+    private String detailEtag;
+
+    // レスポンスの本文のバイト数とリクエスト数(計測期間の合計 bytes / requests が1リクエストあたりのバイト数)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseBytes {
+        public long bytes;
+        public long requests;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkApplication application) throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) application.getContext())
+                .apply(springSecurity()).build();
+        general = new UserDetail(application.getBean(EmployeeService.class).findByCode(BenchmarkApplication.GENERAL_CODE));
+        session = new MockHttpSession();
+        reportId = application.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT MAX(id) FROM reports WHERE employee_code = ?", Integer.class, BenchmarkApplication.GENERAL_CODE);
+        listEtag = mockMvc.perform(get("/reports").with(user(general)).session(session)).andReturn().getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        detailEtag = mockMvc.perform(get("/reports/detail/{id}", reportId).with(user(general)).session(session))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse list(ResponseBytes counter) throws Exception {
+        return perform(get("/reports"), listEtag, counter);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse detail(ResponseBytes counter) throws Exception {
+        return perform(get("/reports/detail/{id}", reportId), detailEtag, counter);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request, String etag, ResponseBytes counter)
+            throws Exception {
+        request.with(user(general)).session(session);
+        if (revalidate) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        counter.bytes += response.getContentAsByteArray().length;
+        counter.requests++;
+        return response;
+    }
+}
@@ -0,0 +1,42 @@
+package com.techacademy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.entity.Employee;
+import com.techacademy.entity.Employee.Role;
+import com.techacademy.service.EmployeeService;
+
+// EmployeeService.save(従業員登録 処理時間の大半はパスワードのハッシュ化)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    // 登録する従業員の社員番号(重複しないように連番にする)
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Benchmark
+    public ErrorKinds save(BenchmarkApplication application) {
+        Employee employee = new Employee();
+        employee.setCode("b" + sequence.incrementAndGet());
+        employee.setName("ベンチマーク");
+        employee.setRole(Role.GENERAL);
+        employee.setPassword(BenchmarkApplication.PASSWORD);
+        return application.getBean(EmployeeService.class).save(employee);
+    }
+}
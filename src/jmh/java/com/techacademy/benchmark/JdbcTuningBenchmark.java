@@ -0,0 +1,103 @@
+package com.techacademy.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.techacademy.entity.Report;
+import com.techacademy.repository.ReportRepository;
+import com.techacademy.service.EmployeeService;
+import com.techacademy.service.UserDetail;
+
+// 本番用の設定(application-prod.properties)の効果 application.properties のみの場合と比較する
+// listAdmin: 日報一覧画面(/reports)、bulkUpdate: 1つのトランザクションで updates 件の日報を更新する(Hibernateのバッチ更新)
+// showSql=true で変更前の本番の状態(実行したSQLをすべて標準出力に出す)を再現する(出力が大量になる)
+// DBはH2のため、MySQL Connector/J の設定(プリペアドステートメントのキャッシュなど)の効果はMySQLに接続して確認する
+// 例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="JdbcTuningBenchmark -p showSql=false,true"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcTuningBenchmark extends BenchmarkApplication {
+
+    // 有効にするプロファイル(default は application.properties のみ)
+    @Param({ "default", "prod" })
+    public String profile;
+
+    @Param({ "false" })
+    public boolean showSql;
+
+    // bulkUpdate で更新する日報の件数
+    @Param({ "200" })
+    public int updates;
+
+    private MockMvc mockMvc;
+    private UserDetail admin;
+    private TransactionTemplate transactionTemplate;
+    private ReportRepository reportRepository;
+    private int count;
+
+    @Override
+    protected List<String> arguments() {
+        List<String> arguments = super.arguments();
+        if ("prod".equals(profile)) {
+            arguments.add("--spring.profiles.active=prod");
+        }
+        if (showSql) {
+            arguments.remove("--spring.jpa.show-sql=false");
+            arguments.add("--spring.jpa.show-sql=true");
+        }
+        return arguments;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) getContext()).apply(springSecurity())
+                .build();
+        admin = new UserDetail(getBean(EmployeeService.class).findByCode(ADMIN_CODE));
+        transactionTemplate = getBean(TransactionTemplate.class);
+        reportRepository = getBean(ReportRepository.class);
+    }
+
+    @Benchmark
+    public MvcResult listAdmin() throws Exception {
+        return mockMvc.perform(get("/reports").with(user(admin))).andReturn();
+    }
+
+    @Benchmark
+    public int bulkUpdate() {
+        String title = "タイトル" + count++;
+        return transactionTemplate.execute(status -> {
+            List<Report> reports = reportRepository.findAll(PageRequest.of(0, updates, Sort.by("id"))).getContent();
+            for (Report report : reports) {
+                report.setTitle(title);
+            }
+            return reports.size();
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.techacademy.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+
+import com.techacademy.service.EmployeeService;
+import com.techacademy.service.UserDetailService;
+
+// ログイン処理(パスワードの照合)の1秒あたりの件数 BCryptの強度ごとの比較
+// CPUのコア数と同じスレッド数で実行する 1コアあたりの件数は結果をコア数で割る
+// cached: ログインに成功した従業員のキャッシュにヒットする場合、uncached: 毎回キャッシュを破棄してDBから取得する場合
+// 例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="LoginBenchmark -p strength=8,10,12"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class LoginBenchmark extends BenchmarkApplication {
+
+    // パスワードのハッシュの強度(従業員のパスワードはこの強度で登録する)
+    @Param({ "10", "12" })
+    public int strength;
+
+    @Override
+    protected List<String> arguments() {
+        List<String> arguments = super.arguments();
+        arguments.add("--app.security.bcrypt-strength=" + strength);
+        return arguments;
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return authenticate(code());
+    }
+
+    @Benchmark
+    public Authentication uncached() {
+        String code = code();
+        CacheManager cacheManager = getBean(CacheManager.class);
+        cacheManager.getCache(UserDetailService.USER_CACHE).evict(code);
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).evict(code);
+        return authenticate(code);
+    }
+
+    // 従業員をばらばらにログインさせる
+    private String code() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(employees) + 1);
+    }
+
+    private Authentication authenticate(String code) {
+        return getBean(DaoAuthenticationProvider.class)
+                .authenticate(UsernamePasswordAuthenticationToken.unauthenticated(code, PASSWORD));
+    }
+}
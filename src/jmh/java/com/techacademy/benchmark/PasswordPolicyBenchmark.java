@@ -0,0 +1,91 @@
+package com.techacademy.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.service.PasswordPolicy;
+
+// 従業員の一括登録を想定したパスワードチェックの比較
+// legacyRegex: 変更前の実装(チェックのたびに Pattern.compile する)
+// passwordPolicy: PasswordPolicy(正規表現を使わず1文字ずつ判定する)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordPolicyBenchmark {
+
+    // 一括登録する従業員数
+    @Param({ "1000", "100000" })
+    private int employees;
+
+    private String[] passwords;
+
+    private final PasswordPolicy passwordPolicy = new PasswordPolicy();
+
+    @Setup
+    public void setUp() {
+        // 9割は正しいパスワード、残りは桁数エラーと半角英数字エラー
+        Random random = new Random(42);
+        String alphanumeric = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        passwords = new String[employees];
+        for (int i = 0; i < employees; i++) {
+            StringBuilder password = new StringBuilder();
+            int length = 8 + random.nextInt(9);
+            for (int j = 0; j < length; j++) {
+                password.append(alphanumeric.charAt(random.nextInt(alphanumeric.length())));
+            }
+            if (i % 20 == 0) {
+                password.setLength(5);
+            } else if (i % 20 == 1) {
+                password.setCharAt(3, 'あ');
+            }
+            passwords[i] = password.toString();
+        }
+    }
+
+    @Benchmark
+    public void legacyRegex(Blackhole blackhole) {
+        for (String password : passwords) {
+            blackhole.consume(legacyCheck(password));
+        }
+    }
+
+    @Benchmark
+    public void passwordPolicy(Blackhole blackhole) {
+        for (String password : passwords) {
+            blackhole.consume(passwordPolicy.validate(password));
+        }
+    }
+
+    // 変更前の EmployeeService のパスワードチェック
+    private static ErrorKinds legacyCheck(String password) {
+        Pattern pattern = Pattern.compile("^[A-Za-z0-9]+$");
+        Matcher matcher = pattern.matcher(password);
+        if (!matcher.matches()) {
+            return ErrorKinds.HALFSIZE_ERROR;
+        }
+        int passwordLength = password.length();
+        if (passwordLength < 8 || 16 < passwordLength) {
+            return ErrorKinds.RANGECHECK_ERROR;
+        }
+        return ErrorKinds.CHECK_OK;
+    }
+}
@@ -0,0 +1,68 @@
+package com.techacademy.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.techacademy.service.EmployeeService;
+import com.techacademy.service.UserDetail;
+
+// ReportController.list・detail(日報一覧・詳細画面の表示 MockMvc経由でテンプレートの描画まで含む)
+// 1リクエストあたりのメモリ割り当て量は -prof gc を付けて実行し、gc.alloc.rate.norm(B/op)で比較する
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportControllerBenchmark {
+
+    private MockMvc mockMvc;
+    private UserDetail admin;
+    private UserDetail general;
+    private Integer reportId;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkApplication application) {
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) application.getContext())
+                .apply(springSecurity()).build();
+        EmployeeService employeeService = application.getBean(EmployeeService.class);
+        admin = new UserDetail(employeeService.findByCode(BenchmarkApplication.ADMIN_CODE));
+        general = new UserDetail(employeeService.findByCode(BenchmarkApplication.GENERAL_CODE));
+        reportId = application.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(id) FROM reports", Integer.class);
+    }
+
+    @Benchmark
+    public MvcResult listAdmin() throws Exception {
+        return mockMvc.perform(get("/reports").with(user(admin))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult listGeneral() throws Exception {
+        return mockMvc.perform(get("/reports").with(user(general))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult detail() throws Exception {
+        return mockMvc.perform(get("/reports/detail/{id}", reportId).with(user(general))).andReturn();
+    }
+}
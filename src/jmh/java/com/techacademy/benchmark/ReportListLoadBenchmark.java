@@ -0,0 +1,106 @@
+package com.techacademy.benchmark;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+// 日報一覧画面(/reports)の負荷試験 プラットフォームスレッドと仮想スレッドの比較
+// 実際にTomcatを起動し、ログイン済みのセッションで concurrency 件のリクエストを同時に送って全件の応答を待つ
+// 例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReportListLoadBenchmark -p concurrency=200,1000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReportListLoadBenchmark extends BenchmarkApplication {
+
+    // 仮想スレッドで処理するかどうか
+    @Param({ "false", "true" })
+    public boolean virtualThreads;
+
+    // 同時に送るリクエスト数(Tomcatのスレッド数の上限 200 を超える値にする)
+    @Param({ "400" })
+    public int concurrency;
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    private HttpClient client;
+    private URI reports;
+
+    @Override
+    protected List<String> arguments() {
+        List<String> arguments = super.arguments();
+        arguments.add("--spring.threads.virtual.enabled=" + virtualThreads);
+        return arguments;
+    }
+
+    @Setup(Level.Trial)
+    public void login() throws Exception {
+        int port = ((ServletWebServerApplicationContext) getContext()).getWebServer().getPort();
+        String base = "http://localhost:" + port;
+        reports = URI.create(base + "/reports");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).cookieHandler(new CookieManager()).build();
+
+        // ログイン画面のCSRFトークンを付けてログインする(一般ユーザー)
+        String page = client.send(HttpRequest.newBuilder(URI.create(base + "/login")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = CSRF.matcher(page);
+        if (!matcher.find()) {
+            throw new IllegalStateException("CSRFトークンが見つかりません");
+        }
+        String form = "username=" + GENERAL_CODE + "&password=" + PASSWORD + "&_csrf="
+                + URLEncoder.encode(matcher.group(1), StandardCharsets.UTF_8);
+        client.send(HttpRequest.newBuilder(URI.create(base + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.discarding());
+
+        if (list().statusCode() != 200) {
+            throw new IllegalStateException("ログインできませんでした");
+        }
+    }
+
+    @Benchmark
+    public int listConcurrent() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+        HttpRequest request = HttpRequest.newBuilder(reports).build();
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    private HttpResponse<Void> list() throws Exception {
+        return client.send(HttpRequest.newBuilder(reports).build(), HttpResponse.BodyHandlers.discarding());
+    }
+}
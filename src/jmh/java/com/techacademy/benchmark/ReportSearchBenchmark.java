@@ -0,0 +1,69 @@
+package com.techacademy.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.techacademy.service.ReportSearchResult;
+import com.techacademy.service.ReportSearchService;
+
+// 日報の全文検索(Luceneのインデックス)と、LIKEによる検索(全件走査)の比較
+// 100万件の場合: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReportSearchBenchmark -p reports=1000000"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportSearchBenchmark {
+
+    private static final String LIKE_SQL = "SELECT id FROM reports WHERE delete_flg = 0"
+            + " AND (title LIKE ? OR content LIKE ?) ORDER BY report_date DESC, id DESC LIMIT 20";
+
+    // 検索するキーワード
+    @Param({ "障害対応", "顧客訪問 資料作成" })
+    public String keywords;
+
+    private ReportSearchService reportSearchService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkApplication application) {
+        reportSearchService = application.getBean(ReportSearchService.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        // 起動後に登録した日報でインデックスを作り直す
+        reportSearchService.rebuild();
+    }
+
+    // 管理者(全社員の日報が対象)
+    @Benchmark
+    public ReportSearchResult searchAdmin() throws IOException {
+        return reportSearchService.search(keywords, null, 0, 20);
+    }
+
+    // 一般ユーザー(自分の日報のみ)
+    @Benchmark
+    public ReportSearchResult searchGeneral() throws IOException {
+        return reportSearchService.search(keywords, BenchmarkApplication.GENERAL_CODE, 0, 20);
+    }
+
+    // 比較用 LIKE '%キーワード%' はインデックスを使えないため全件を走査する(最初のキーワードのみ)
+    @Benchmark
+    public Object likeScan() {
+        String pattern = "%" + keywords.split(" ")[0] + "%";
+        return jdbcTemplate.queryForList(LIKE_SQL, Integer.class, pattern, pattern);
+    }
+}
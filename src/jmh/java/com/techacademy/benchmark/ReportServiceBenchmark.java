@@ -0,0 +1,29 @@
+package com.techacademy.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.techacademy.entity.Report;
+import com.techacademy.service.ReportService;
+
+// ReportService.getAllReports(全日報を社員情報ごと取得)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportServiceBenchmark {
+
+    @Benchmark
+    public List<Report> getAllReports(BenchmarkApplication application) {
+        return application.getBean(ReportService.class).getAllReports();
+    }
+}
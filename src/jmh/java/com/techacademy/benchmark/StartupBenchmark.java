@@ -0,0 +1,53 @@
+package com.techacademy.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.techacademy.DailyReportSystemApplication;
+
+// アプリケーションの起動時間(JVMを起動し直して1回ずつ計測する)
+// create: 変更前の方式(Hibernateが毎回テーブルを作り直す)
+// flyway: Flywayのマイグレーション + エンティティの検証、初期データを登録
+// flyway-fast: 上記から初期データの登録を省略(app.db.seed.enabled=false)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(3)
+public class StartupBenchmark {
+
+    @Param({ "create", "flyway", "flyway-fast" })
+    public String schema;
+
+    @Benchmark
+    public void start() {
+        List<String> arguments = BenchmarkApplication.arguments("startup");
+        switch (schema) {
+        case "create" -> {
+            arguments.add("--spring.flyway.enabled=false");
+            arguments.add("--spring.jpa.hibernate.ddl-auto=create");
+        }
+        case "flyway" -> arguments.add("--app.db.seed.enabled=true");
+        case "flyway-fast" -> arguments.add("--app.db.seed.enabled=false");
+        default -> {
+        }
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DailyReportSystemApplication.class)
+                .run(arguments.toArray(new String[0]));
+        context.close();
+    }
+}
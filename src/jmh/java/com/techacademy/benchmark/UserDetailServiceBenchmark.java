@@ -0,0 +1,38 @@
+package com.techacademy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.techacademy.service.EmployeeService;
+import com.techacademy.service.UserDetailService;
+
+// UserDetailService.loadUserByUsername(ログイン時の従業員取得)
+// cached: 従業員のキャッシュにヒットする場合、uncached: 毎回キャッシュを破棄してDBから取得する場合
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDetailServiceBenchmark {
+
+    @Benchmark
+    public UserDetails cached(BenchmarkApplication application) {
+        return application.getBean(UserDetailService.class).loadUserByUsername(BenchmarkApplication.GENERAL_CODE);
+    }
+
+    @Benchmark
+    public UserDetails uncached(BenchmarkApplication application) {
+        application.getBean(CacheManager.class).getCache(EmployeeService.EMPLOYEE_CACHE)
+                .evict(BenchmarkApplication.GENERAL_CODE);
+        return application.getBean(UserDetailService.class).loadUserByUsername(BenchmarkApplication.GENERAL_CODE);
+    }
+}
@@ -0,0 +1,339 @@
+package com.techacademy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// AJPコネクタで受けたリクエストのレスポンスをgzipで圧縮する
+// HTTPはTomcatが server.compression.* の設定で圧縮するが、AJPコネクタには圧縮の機能がないため、同じ設定でここで圧縮する
+// min-size までは溜めておき、超えた時点で圧縮するかどうかを決める(小さいレスポンスはそのまま返す)
+public class AjpCompressionFilter extends OncePerRequestFilter {
+
+    private final int ajpPort;
+    private final List<MimeType> mimeTypes;
+    private final int minSize;
+
+    public AjpCompressionFilter(int ajpPort, String[] mimeTypes, int minSize) {
+        this.ajpPort = ajpPort;
+        this.mimeTypes = Arrays.stream(mimeTypes).map(MimeTypeUtils::parseMimeType).toList();
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // AJPのポート以外(HTTP)、HEAD、gzipに対応していないクライアントは対象外
+        if (request.getLocalPort() != ajpPort || HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressingResponse compressingResponse = new CompressingResponse(response);
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, compressingResponse);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                // 非同期処理(StreamingResponseBodyなど)の場合は、処理が終わった時点で書き出す
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) throws IOException {
+                        compressingResponse.finish();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                compressingResponse.finish();
+            }
+        }
+    }
+
+    // 圧縮する内容かどうか(Content-Typeが対象で、まだ圧縮されていない)
+    private boolean isCompressible(HttpServletResponse response) {
+        String contentType = response.getContentType();
+        if (contentType == null || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        int status = response.getStatus();
+        if (status == HttpStatus.NO_CONTENT.value() || status == HttpStatus.NOT_MODIFIED.value()) {
+            return false;
+        }
+        try {
+            MimeType type = MimeTypeUtils.parseMimeType(contentType);
+            return mimeTypes.stream().anyMatch(type::equalsTypeAndSubtype);
+        } catch (InvalidMimeTypeException e) {
+            return false;
+        }
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        // 圧縮するかどうかを決めるまで、レスポンスを溜めておく
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(minSize);
+        // 決めた後の出力先(gzipか、元のレスポンス)
+        private OutputStream target;
+        private long contentLength = -1;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean finished;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new BufferingOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(new BufferingOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // Content-Lengthは圧縮しないと決めた場合のみ設定する
+        @Override
+        public void setContentLength(int len) {
+            contentLength = len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength = len;
+        }
+
+        // Content-Lengthはヘッダーとして設定された場合も同じ扱いにする(Spring MVCのメッセージコンバーターは addHeader で設定する)
+        @Override
+        public void setHeader(String name, String value) {
+            if (isContentLength(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (isContentLength(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (isContentLength(name)) {
+                contentLength = value;
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (isContentLength(name)) {
+                contentLength = value;
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return isContentLength(name) ? contentLength >= 0 : super.containsHeader(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (isContentLength(name)) {
+                return contentLength >= 0 ? Long.toString(contentLength) : null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            if (isContentLength(name)) {
+                return contentLength >= 0 ? List.of(Long.toString(contentLength)) : List.of();
+            }
+            return super.getHeaders(name);
+        }
+
+        private boolean isContentLength(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (buffer != null) {
+                buffer.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (buffer != null) {
+                buffer.reset();
+            }
+            contentLength = -1;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                if (buffer.size() + len <= minSize) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                start(isCompressible(this));
+            }
+            target.write(b, off, len);
+        }
+
+        // 溜めている間はフラッシュしない(レスポンスが確定して圧縮できなくなるため)
+        private void flush() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        // 圧縮するかどうかを決め、溜めていた内容を書き出す
+        private void start(boolean compress) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (compress) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                target = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+            } else {
+                if (contentLength >= 0 && !response.isCommitted()) {
+                    response.setContentLengthLong(contentLength);
+                }
+                target = response.getOutputStream();
+            }
+            buffer.writeTo(target);
+            buffer = null;
+        }
+
+        // レスポンスの終わり min-size 以下ならそのまま返し、圧縮中ならgzipの終わりを書き出す
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                if (buffer.size() == 0) {
+                    return;
+                }
+                if (contentLength < 0) {
+                    contentLength = buffer.size();
+                }
+                start(false);
+            } else if (target instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+        }
+
+        private class BufferingOutputStream extends ServletOutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            // ノンブロッキングの書き込みは元のレスポンスの状態に従う
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
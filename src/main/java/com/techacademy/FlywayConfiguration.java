@@ -0,0 +1,39 @@
+package com.techacademy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.api.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfiguration {
+
+    // 初期データ(db/seed)を登録するかどうか 開発(devプロファイル)とテストのみ true にする
+    @Value("${app.db.seed.enabled:false}")
+    private boolean seedEnabled;
+
+    /**
+     * テーブル定義(db/migration)に加えて、初期データ(db/seed)を適用する
+     * 初期データのSQLは常に適用し、登録するかどうかはプレースホルダー(seedEnabled)でSQLの中で判定する
+     * (場所から外すと、以前に初期データを登録したDBで適用済みの R__seed_data が見つからず検証エラーになるため)
+     */
+    @Bean
+    public FlywayConfigurationCustomizer seedLocationCustomizer() {
+        return configuration -> {
+            List<Location> locations = new ArrayList<Location>(Arrays.asList(configuration.getLocations()));
+            locations.add(new Location("classpath:db/seed"));
+            configuration.locations(locations.toArray(new Location[0]));
+
+            Map<String, String> placeholders = new HashMap<String, String>(configuration.getPlaceholders());
+            placeholders.put("seedEnabled", String.valueOf(seedEnabled));
+            configuration.placeholders(placeholders);
+        };
+    }
+}
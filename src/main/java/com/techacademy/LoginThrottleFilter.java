@@ -0,0 +1,71 @@
+package com.techacademy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+// ログイン処理(POST /login)の同時実行数を制限する
+// 始業時にログインが集中しても、パスワードの照合(BCrypt)がCPUを使い切って他の画面まで遅くならないようにする
+// 上限を超えたログインは到着順に最大 maxWait 待たせ、それでも処理できない場合は /login?busy に戻す
+@Slf4j
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final RequestMatcher LOGIN = new AntPathRequestMatcher("/login", "POST");
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Counter rejected;
+
+    public LoginThrottleFilter(int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejected = Counter.builder("login.rejected")
+                .description("混雑のため処理しなかったログインの数")
+                .register(meterRegistry);
+        Gauge.builder("login.waiting", permits, Semaphore::getQueueLength)
+                .description("処理を待っているログインの数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !LOGIN.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            log.warn("ログインが混雑しているため処理しませんでした");
+            response.sendRedirect(request.getContextPath() + "/login?busy");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
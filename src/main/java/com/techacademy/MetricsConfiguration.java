@@ -0,0 +1,55 @@
+package com.techacademy;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfiguration(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** コントローラーの @Timed を有効にする */
+    @Bean
+    public TimedAspect timedAspect() {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /** 画面ごとに、1リクエストで発行したSQLの数を記録する(テンプレート描画中のSQLも含む) */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                QueryCountInspector.reset();
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    Exception ex) {
+                if (handler instanceof HandlerMethod handlerMethod) {
+                    DistributionSummary.builder("jdbc.statements.per.request")
+                            .description("1リクエストで発行したSQLの数")
+                            .tag("class", handlerMethod.getBeanType().getSimpleName())
+                            .tag("method", handlerMethod.getMethod().getName())
+                            .register(meterRegistry)
+                            .record(QueryCountInspector.count());
+                }
+            }
+        });
+    }
+}
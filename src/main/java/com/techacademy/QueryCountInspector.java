@@ -0,0 +1,26 @@
+package com.techacademy;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Hibernateが発行するSQLの数をスレッドごとに数える(1リクエストあたりのSQL数の計測に使う)
+public class QueryCountInspector implements StatementInspector {
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    // 現在のスレッドの件数を0に戻す
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    // 現在のスレッドで発行されたSQLの数
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
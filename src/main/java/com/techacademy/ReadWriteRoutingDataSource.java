@@ -0,0 +1,151 @@
+package com.techacademy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+// 読み取り専用のトランザクション(@Transactional(readOnly = true))はレプリカ、それ以外はプライマリで処理する
+// レプリカへの反映には遅れがあるため、書き込みを行ったセッションは sticky-after-write の間プライマリから読む(自分の登録・更新がすぐ見えるように)
+// 書き込みを行ったかどうかは、更新系のSQL(INSERT・UPDATE・DELETEなど)を実行したトランザクションがコミットされた時点で記録する
+// (読み取り専用でないトランザクションでも、検索だけの場合は記録しない)
+// 接続はトランザクションの読み取り専用の設定が決まってから取得する必要があるため、LazyConnectionDataSourceProxy を通して使う
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static enum Route {
+        PRIMARY, REPLICA
+    }
+
+    // 最後に書き込みを行った時刻(ミリ秒)を保持するセッション属性
+    public static final String LAST_WRITE_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".LAST_WRITE";
+
+    private final long stickyAfterWriteMillis;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration stickyAfterWrite) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.stickyAfterWriteMillis = stickyAfterWrite.toMillis();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // トランザクション外(Flywayなど)はプライマリ
+            return Route.PRIMARY;
+        }
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return isReplicaRead(readOnly) ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackWrites(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackWrites(super.getConnection(username, password));
+    }
+
+    // 読み取り専用のトランザクションを、レプリカで処理するかどうか
+    public boolean isReplicaRead(boolean readOnly) {
+        return readOnly && !isStickyToPrimary();
+    }
+
+    // 書き込みを行ったセッションかどうか(リクエストの処理中のみ 定期処理などはセッションがないためレプリカを使う)
+    private boolean isStickyToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        Object lastWrite = attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        return lastWrite instanceof Long time && System.currentTimeMillis() - time < stickyAfterWriteMillis;
+    }
+
+    // 書き込み用のトランザクションの接続は、更新系のSQLを実行したかどうかを記録する(リクエストの処理中のみ)
+    private Connection trackWrites(Connection connection) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || RequestContextHolder.getRequestAttributes() == null) {
+            return connection;
+        }
+        WriteTracker tracker = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(WriteTracker.class::isInstance).map(WriteTracker.class::cast).findFirst().orElse(null);
+        if (tracker == null) {
+            tracker = new WriteTracker();
+            TransactionSynchronizationManager.registerSynchronization(tracker);
+        }
+        return tracker.wrap(Connection.class, connection);
+    }
+
+    // トランザクションで更新系のSQLを実行したかどうか コミットされた場合のみ、セッションに時刻を記録する
+    private static class WriteTracker implements TransactionSynchronization {
+
+        private volatile boolean written;
+
+        @Override
+        public void afterCommit() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (written && attributes != null) {
+                attributes.setAttribute(LAST_WRITE_ATTRIBUTE, System.currentTimeMillis(), RequestAttributes.SCOPE_SESSION);
+            }
+        }
+
+        // 接続から作成したStatementも同じように包み、更新件数を返す実行(executeUpdate・executeBatchなど)を書き込みとみなす
+        @SuppressWarnings("unchecked")
+        <T> T wrap(Class<T> type, T target) {
+            InvocationHandler handler = (proxy, method, arguments) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+                if (isWrite(method, result)) {
+                    written = true;
+                }
+                return wrapStatement(result);
+            };
+            return (T) Proxy.newProxyInstance(WriteTracker.class.getClassLoader(), new Class<?>[] { type }, handler);
+        }
+
+        private Object wrapStatement(Object result) {
+            if (result instanceof CallableStatement statement) {
+                return wrap(CallableStatement.class, statement);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return wrap(PreparedStatement.class, statement);
+            }
+            if (result instanceof Statement statement) {
+                return wrap(Statement.class, statement);
+            }
+            return result;
+        }
+
+        // execute は結果が更新件数(false)の場合のみ書き込み
+        private static boolean isWrite(Method method, Object result) {
+            if (!Statement.class.isAssignableFrom(method.getDeclaringClass())) {
+                return false;
+            }
+            String name = method.getName();
+            return name.startsWith("executeUpdate") || name.startsWith("executeLargeUpdate")
+                    || name.equals("executeBatch") || name.equals("executeLargeBatch")
+                    || (name.equals("execute") && Boolean.FALSE.equals(result));
+        }
+    }
+}
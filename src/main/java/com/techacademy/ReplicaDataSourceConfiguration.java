@@ -0,0 +1,104 @@
+package com.techacademy;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.sql.SQLException;
+
+// 読み取り用のレプリカ(app.datasource.replica.url を指定した場合のみ)
+// 読み取り専用のトランザクションをレプリカ、それ以外をプライマリ(spring.datasource.*)に振り分ける
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica.url:}'.isEmpty()")
+public class ReplicaDataSourceConfiguration {
+
+    /** プライマリ(spring.datasource.* と spring.datasource.hikari.* を使う) */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /** レプリカ(接続先は app.datasource.replica.*、プールの設定は app.datasource.replica.hikari.*) */
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName()).url(url).username(username).password(password)
+                .build();
+        dataSource.setPoolName("daily-report-replica");
+        // レプリカには書き込まない
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${app.datasource.replica.sticky-after-write:5s}") Duration stickyAfterWrite) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, stickyAfterWrite);
+    }
+
+    /** アプリケーション(JPA・JdbcTemplate・Flyway)が使うDataSource SQLを実行するときに接続先を決める */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * レプリカから読み込んだエンティティ・クエリ結果は2次キャッシュに入れない(キャッシュからの取得は行う)
+     * レプリカの反映が遅れている間に読んだ古い内容が、他のセッションにもキャッシュから返されないようにする
+     */
+    @Bean
+    public static BeanPostProcessor replicaJpaDialectPostProcessor(
+            ObjectProvider<ReadWriteRoutingDataSource> routingDataSource) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean factoryBean) {
+                    factoryBean.setJpaDialect(new HibernateJpaDialect() {
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+                                throws PersistenceException, SQLException, TransactionException {
+                            Object transactionData = super.beginTransaction(entityManager, definition);
+                            if (routingDataSource.getObject().isReplicaRead(definition.isReadOnly())) {
+                                entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+                            }
+                            return transactionData;
+                        }
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+}
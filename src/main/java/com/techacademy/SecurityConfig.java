@@ -1,34 +1,124 @@
 package com.techacademy;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.HttpSessionEventPublisher;
+
+import com.techacademy.service.UserDetailService;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class SecurityConfig {
+    // パスワードのハッシュの接頭辞({bcrypt})
+    private static final String BCRYPT_ID = "bcrypt";
+
     /** 認証・認可設定 */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, LoginThrottleFilter loginThrottleFilter)
+            throws Exception {
+        // ログイン処理(パスワードの照合)の同時実行数を制限する
+        http.addFilterBefore(loginThrottleFilter, UsernamePasswordAuthenticationFilter.class);
         http.formLogin(login -> login.loginProcessingUrl("/login") // 従業員番号・パスワードの送信先
                 .loginPage("/login") // ログイン画面
                 .defaultSuccessUrl("/") // ログイン成功後のリダイレクト先
                 .failureUrl("/login?error") // ログイン失敗時のリダイレクト先
                 .permitAll() // ログイン画面は未ログインでアクセス可
         ).logout(logout -> logout.logoutSuccessUrl("/login") // ログアウト後のリダイレクト先
+        ).sessionManagement(session -> session.maximumSessions(-1) // 同時ログイン数は制限しない
+                .sessionRegistry(sessionRegistry()) // 権限変更時にセッションを失効させるためログイン中のセッションを管理する
+                .expiredUrl("/login") // 失効したセッションは再ログインさせる
         ).authorizeHttpRequests(
                 auth -> auth.requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll() // css等は未ログインでアクセス可
-                        .requestMatchers("/employees/**").hasAnyAuthority("ADMIN").anyRequest().authenticated()); // その他はログイン必要
+                        .requestMatchers("/employees/**").hasAnyAuthority("ADMIN")
+                        .requestMatchers("/reports/import/**").hasAnyAuthority("ADMIN") // 日報の一括登録
+                        .requestMatchers("/reports/export/**").hasAnyAuthority("ADMIN") // 日報の出力
+                        .requestMatchers("/reports/search/rebuild").hasAnyAuthority("ADMIN") // 検索インデックスの再構築
+                        .requestMatchers("/reports/stats/**").hasAnyAuthority("ADMIN") // 提出状況
+                        .requestMatchers("/actuator/**").hasAnyAuthority("ADMIN") // 監視用エンドポイントは管理者のみ
+                        .anyRequest().authenticated()); // その他はログイン必要
 
         return http.build();
     }
 
-    /** ハッシュ化したパスワードの比較に使用する */
+    /** ログイン中のセッション管理 */
+    @Bean
+    public SessionRegistry sessionRegistry() {
+        return new SessionRegistryImpl();
+    }
+
+    /** セッションの破棄をセッション管理に通知する */
+    @Bean
+    public HttpSessionEventPublisher httpSessionEventPublisher() {
+        return new HttpSessionEventPublisher();
+    }
+
+    /**
+     * ハッシュ化したパスワードの比較に使用する
+     * 新しいハッシュは {bcrypt} を付けて app.security.bcrypt-strength の強度で作成する
+     * 接頭辞のない既存のハッシュ($2a$...)もそのまま照合でき、ログイン時に新しい形式・強度で作り直す
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt-strength:10}") int strength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<String, PasswordEncoder>();
+        encoders.put(BCRYPT_ID, new BCryptPasswordEncoder(strength));
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return passwordEncoder;
+    }
+
+    /**
+     * ログイン処理
+     * 照合に成功した従業員はキャッシュ(users)し、次回からDBを読まずに照合する
+     * 古い形式・強度のハッシュはログイン成功時に作り直して保存する
+     */
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(UserDetailService userDetailService,
+            PasswordEncoder passwordEncoder, CacheManager cacheManager) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailService);
+        provider.setUserDetailsPasswordService(userDetailService);
+        provider.setPasswordEncoder(passwordEncoder);
+        // UserDetail はパスワードを消さない(CredentialsContainer ではない)ため、ログイン後もキャッシュで照合できる
+        provider.setUserCache(new SpringCacheBasedUserCache(cacheManager.getCache(UserDetailService.USER_CACHE)));
+        return provider;
+    }
+
+    /** ログイン処理の同時実行数の制限(上限を超えた分は待たせ、待ちきれない場合は /login?busy に戻す) */
+    @Bean
+    public LoginThrottleFilter loginThrottleFilter(
+            @Value("${app.security.login.max-concurrent:0}") int maxConcurrent,
+            @Value("${app.security.login.max-wait:2s}") Duration maxWait, MeterRegistry meterRegistry) {
+        // 0 の場合はCPUのコア数(BCryptの計算はCPUを使い切るため、コア数より多く同時に処理しても速くならない)
+        int permits = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        return new LoginThrottleFilter(permits, maxWait, meterRegistry);
+    }
+
+    /** LoginThrottleFilter は Spring Security の中でだけ使う(サーブレットのフィルターとしては登録しない) */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<LoginThrottleFilter> loginThrottleFilterRegistration(
+            LoginThrottleFilter loginThrottleFilter) {
+        FilterRegistrationBean<LoginThrottleFilter> registration = new FilterRegistrationBean<LoginThrottleFilter>(
+                loginThrottleFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 }
\ No newline at end of file
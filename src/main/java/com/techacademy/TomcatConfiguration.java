@@ -1,32 +1,131 @@
 package com.techacademy; // ご自身の環境に合わせてください
 
+import java.util.concurrent.Executor;
+
 import org.apache.catalina.connector.Connector;
-import org.apache.coyote.ajp.AjpNio2Protocol;
+import org.apache.catalina.core.StandardThreadExecutor;
+import org.apache.coyote.ajp.AbstractAjpProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 
 @Configuration
+@EnableConfigurationProperties(TomcatConnectorProperties.class)
 public class TomcatConfiguration implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
 
+    private final TomcatConnectorProperties properties;
+
+    private final ObjectProvider<StandardThreadExecutor> sharedExecutor;
+
+    // 仮想スレッドでリクエストを処理するかどうか(HTTPはSpring Bootが設定する AJPはここで設定する)
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public TomcatConfiguration(TomcatConnectorProperties properties, ObjectProvider<StandardThreadExecutor> sharedExecutor) {
+        this.properties = properties;
+        this.sharedExecutor = sharedExecutor;
+    }
+
+    /** HTTPとAJPで共有するスレッドプール */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "app.tomcat.shared-executor.enabled", havingValue = "true")
+    public StandardThreadExecutor tomcatSharedExecutor() {
+        TomcatConnectorProperties.SharedExecutor settings = properties.getSharedExecutor();
+        StandardThreadExecutor executor = new StandardThreadExecutor();
+        executor.setName("tomcatSharedExecutor");
+        executor.setNamePrefix("tomcat-exec-");
+        executor.setMaxThreads(settings.getMaxThreads());
+        executor.setMinSpareThreads(settings.getMinSpareThreads());
+        executor.setMaxQueueSize(settings.getMaxQueueSize());
+        return executor;
+    }
+
+    /** AJPのレスポンスの圧縮(HTTPと同じ server.compression.* の設定を使う AJPのポートが0の場合は圧縮しない) */
+    @Bean
+    @ConditionalOnProperty(name = { "server.compression.enabled", "app.tomcat.ajp.enabled" }, havingValue = "true")
+    public FilterRegistrationBean<AjpCompressionFilter> ajpCompressionFilter(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        AjpCompressionFilter filter = new AjpCompressionFilter(properties.getAjp().getPort(), compression.getMimeTypes(),
+                (int) compression.getMinResponseSize().toBytes());
+        FilterRegistrationBean<AjpCompressionFilter> registration = new FilterRegistrationBean<AjpCompressionFilter>(filter);
+        // Spring Securityなど他のフィルターが書き出すレスポンスも圧縮する
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
     @Override
     public void customize(TomcatServletWebServerFactory factory) {
+        Executor executor = connectorExecutor();
+        if (executor != null) {
+            factory.addProtocolHandlerCustomizers(protocol -> protocol.setExecutor(executor));
+        }
+
         // Tomcatとの通信手段にAJPを追加
-        factory.addAdditionalTomcatConnectors(ajpConnector());
+        if (properties.getAjp().isEnabled()) {
+            factory.addAdditionalTomcatConnectors(ajpConnector(executor));
+        }
     }
 
-    private Connector ajpConnector() {
-        // AJPの利用を宣言
-        Connector connector = new Connector("org.apache.coyote.ajp.AjpNio2Protocol");
+    // コネクタに設定するスレッドプール 仮想スレッドが有効な場合はそちらを優先する(nullの場合はコネクタごとのプール)
+    private Executor connectorExecutor() {
+        if (virtualThreads) {
+            return null;
+        }
+        return sharedExecutor.getIfAvailable();
+    }
+
+    private Connector ajpConnector(Executor executor) {
+        TomcatConnectorProperties.Ajp settings = properties.getAjp();
+
+        // AJPの利用を宣言(NIO・NIO2は設定で切り替える)
+        Connector connector = new Connector(settings.getProtocol().getClassName());
+        connector.setPort(settings.getPort());
+
+        // secretという保護機能を利用するかどうか(初期値は利用しない)
+        AbstractAjpProtocol<?> protocol = (AbstractAjpProtocol<?>) connector.getProtocolHandler();
+        protocol.setSecretRequired(settings.isSecretRequired());
 
-        // AJPの通信で8009番ポートを使うための指定
-        connector.setPort(8009);
+        // 追加のコネクタには spring.threads.virtual.enabled が適用されないため、同じ設定にする
+        if (virtualThreads) {
+            protocol.setExecutor(new VirtualThreadExecutor("tomcat-ajp-"));
+        } else if (executor != null) {
+            protocol.setExecutor(executor);
+        } else {
+            if (settings.getMaxThreads() != null) {
+                protocol.setMaxThreads(settings.getMaxThreads());
+            }
+            if (settings.getMinSpareThreads() != null) {
+                protocol.setMinSpareThreads(settings.getMinSpareThreads());
+            }
+        }
 
-        // secretという保護機能を利用しないようにする設定
-        AjpNio2Protocol protocol = (AjpNio2Protocol) connector.getProtocolHandler();
-        protocol.setSecretRequired(false);
+        if (settings.getMaxConnections() != null) {
+            protocol.setMaxConnections(settings.getMaxConnections());
+        }
+        if (settings.getAcceptCount() != null) {
+            protocol.setAcceptCount(settings.getAcceptCount());
+        }
+        if (settings.getPacketSize() != null) {
+            protocol.setPacketSize(settings.getPacketSize());
+        }
+        if (settings.getConnectionTimeout() != null) {
+            protocol.setConnectionTimeout((int) settings.getConnectionTimeout().toMillis());
+        }
+        if (settings.getKeepAliveTimeout() != null) {
+            protocol.setKeepAliveTimeout((int) settings.getKeepAliveTimeout().toMillis());
+        }
 
         return connector;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.techacademy;
+
+import java.util.concurrent.Executor;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardThreadExecutor;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// コネクタ(HTTP・AJP)ごとのスレッド数・待ち行列・接続数を記録する
+// 例: tomcat.connector.threads.busy{connector="ajp-nio2-8009"}
+@Component
+public class TomcatConnectorMetrics implements ApplicationListener<WebServerInitializedEvent> {
+
+    private final MeterRegistry meterRegistry;
+
+    public TomcatConnectorMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (!(event.getWebServer() instanceof TomcatWebServer webServer)) {
+            return;
+        }
+        for (Connector connector : webServer.getTomcat().getService().findConnectors()) {
+            ProtocolHandler handler = connector.getProtocolHandler();
+            if (handler instanceof AbstractProtocol<?> protocol) {
+                register(protocol);
+            }
+        }
+    }
+
+    private void register(AbstractProtocol<?> protocol) {
+        String name = protocol.getName();
+        gauge("tomcat.connector.connections.current", name, protocol, p -> p.getConnectionCount());
+        gauge("tomcat.connector.connections.max", name, protocol, p -> p.getMaxConnections());
+        // スレッド数と待ち行列は、実行中のスレッドプールから取得する(仮想スレッドの場合は記録しない)
+        gauge("tomcat.connector.threads.busy", name, protocol, p -> busyThreads(p.getExecutor()));
+        gauge("tomcat.connector.threads.current", name, protocol, p -> currentThreads(p.getExecutor()));
+        gauge("tomcat.connector.threads.max", name, protocol, p -> maxThreads(p.getExecutor()));
+        gauge("tomcat.connector.queue.size", name, protocol, p -> queueSize(p.getExecutor()));
+    }
+
+    private void gauge(String meter, String connector, AbstractProtocol<?> protocol,
+            ToDoubleFunction<AbstractProtocol<?>> value) {
+        Gauge.builder(meter, protocol, value).tag("connector", connector).register(meterRegistry);
+    }
+
+    private static double busyThreads(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            return pool.getActiveCount();
+        }
+        if (executor instanceof StandardThreadExecutor pool) {
+            return pool.getActiveCount();
+        }
+        return Double.NaN;
+    }
+
+    private static double currentThreads(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            return pool.getPoolSize();
+        }
+        if (executor instanceof StandardThreadExecutor pool) {
+            return pool.getPoolSize();
+        }
+        return Double.NaN;
+    }
+
+    private static double maxThreads(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            return pool.getMaximumPoolSize();
+        }
+        if (executor instanceof StandardThreadExecutor pool) {
+            return pool.getMaxThreads();
+        }
+        return Double.NaN;
+    }
+
+    private static double queueSize(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            return pool.getQueue().size();
+        }
+        if (executor instanceof StandardThreadExecutor pool) {
+            return pool.getQueueSize();
+        }
+        return Double.NaN;
+    }
+}
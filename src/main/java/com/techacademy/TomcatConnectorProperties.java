@@ -0,0 +1,69 @@
+package com.techacademy;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+// Tomcatのコネクタ設定(application.properties の app.tomcat.*)
+// 未指定の項目はTomcatの初期値のまま
+@Data
+@ConfigurationProperties(prefix = "app.tomcat")
+public class TomcatConnectorProperties {
+
+    // HTTPとAJPで共有するスレッドプール
+    private final SharedExecutor sharedExecutor = new SharedExecutor();
+
+    // AJPコネクタ(Apacheからの転送を受ける)
+    private final Ajp ajp = new Ajp();
+
+    public static enum AjpProtocol {
+        NIO("org.apache.coyote.ajp.AjpNioProtocol"), NIO2("org.apache.coyote.ajp.AjpNio2Protocol");
+
+        private String className;
+
+        private AjpProtocol(String className) {
+            this.className = className;
+        }
+
+        public String getClassName() {
+            return this.className;
+        }
+    }
+
+    @Data
+    public static class SharedExecutor {
+        // trueの場合、HTTPとAJPが同じスレッドプールで処理する(仮想スレッドを使う場合は無視する)
+        private boolean enabled = false;
+        // 最大スレッド数
+        private int maxThreads = 200;
+        // 常に待機させておくスレッド数
+        private int minSpareThreads = 25;
+        // スレッドがすべて使用中のときに待たせるリクエスト数の上限
+        private int maxQueueSize = Integer.MAX_VALUE;
+    }
+
+    @Data
+    public static class Ajp {
+        // AJPコネクタを追加するかどうか
+        private boolean enabled = true;
+        // ポート番号(0の場合は空いているポートを使う)
+        private int port = 8009;
+        // NIO か NIO2
+        private AjpProtocol protocol = AjpProtocol.NIO2;
+        // secretという保護機能を使うかどうか
+        private boolean secretRequired = false;
+        // スレッド数(共有スレッドプールを使わない場合)
+        private Integer maxThreads;
+        private Integer minSpareThreads;
+        // 同時に受け付ける接続数の上限と、上限を超えた接続を待たせる数
+        private Integer maxConnections;
+        private Integer acceptCount;
+        // AJPパケットの最大サイズ(Apache側の ProxyIOBufferSize / max_packet_size と合わせる)
+        private Integer packetSize;
+        // リクエストを待つ時間と、接続を維持する時間
+        private Duration connectionTimeout;
+        private Duration keepAliveTimeout;
+    }
+}
@@ -18,6 +18,8 @@ public enum ErrorKinds {
     LOGINCHECK_ERROR,
     // 日付チェックエラー
     DATECHECK_ERROR,
+    // 入力チェックエラー(一括登録で、社員番号・氏名・権限が正しくない場合)
+    INPUT_ERROR,
     // チェックOK
     CHECK_OK,
     // 正常終了
@@ -32,6 +32,8 @@ public class ErrorMessage {
                     new ArrayList<String>(Arrays.asList("deleteError", "ログイン中の従業員を削除することは出来ません")));
             // 同一日付チェック用エラーメッセージ
             put(ErrorKinds.DATECHECK_ERROR, new ArrayList<String>(Arrays.asList("reportDateError", "既に登録されている日付です")));
+            // 一括登録の入力チェック用エラーメッセージ
+            put(ErrorKinds.INPUT_ERROR, new ArrayList<String>(Arrays.asList("inputError", "入力内容に誤りがあります")));
         }
     };
 
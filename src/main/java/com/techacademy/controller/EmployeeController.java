@@ -1,5 +1,7 @@
 package com.techacademy.controller;
 
+import java.io.IOException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -12,37 +14,45 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
 
 import com.techacademy.constants.ErrorKinds;
 import com.techacademy.constants.ErrorMessage;
 
 import com.techacademy.entity.Employee;
+import com.techacademy.service.EmployeeImportService;
 import com.techacademy.service.EmployeeService;
 import com.techacademy.service.UserDetail;
 
 
 
+import io.micrometer.core.annotation.Timed;
+
 //************************************************************************************************************************************************************
 
 @Controller
+@Timed("controller.handler") // 画面ごとの処理時間を計測する
 @RequestMapping("employees")
 public class EmployeeController {
 
 	//これで EmployeeService のインスタンスを保持する変数を定義
     private final EmployeeService employeeService;
+    private final EmployeeImportService employeeImportService;
 
     //コンストラクタで EmployeeService を注入してる。Spring が自動的にインスタンスを作って渡してくれる。
     @Autowired
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, EmployeeImportService employeeImportService) {
         this.employeeService = employeeService;
+        this.employeeImportService = employeeImportService;
     }
 
   //************************************************************************************************************************************************************
 
-    // 従業員一覧画面 モデルに全従業員リストとサイズを追加してる
+    // 従業員一覧画面 モデルに全従業員リストと件数を追加してる
     @GetMapping
     public String list(Model model) {
-        model.addAttribute("listSize", employeeService.findAll().size());
+        model.addAttribute("listSize", employeeService.getEmployeeCount());
         model.addAttribute("employeeList", employeeService.findAll());
 
         return "employees/list";
@@ -106,6 +116,27 @@ public class EmployeeController {
         return "redirect:/employees";
     }
 
+  //************************************************************************************************************************************************************
+
+    // 従業員一括登録画面(CSV)
+    @GetMapping(value = "/import")
+    public String importForm() {
+        return "employees/import";
+    }
+
+    // 従業員一括登録処理 行ごとの結果と処理時間を表示する
+    @PostMapping(value = "/import")
+    public String importEmployees(@RequestParam("file") MultipartFile file, Model model) throws IOException {
+        String filename = file.getOriginalFilename();
+        if (file.isEmpty() || filename == null || !filename.toLowerCase().endsWith(".csv")) {
+            model.addAttribute("fileError", "CSVファイルを選択してください");
+            return "employees/import";
+        }
+
+        model.addAttribute("result", employeeImportService.importEmployees(file.getInputStream()));
+        return "employees/import";
+    }
+
  //***************************************************************************************************************************************
 
 
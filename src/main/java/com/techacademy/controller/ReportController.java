@@ -1,13 +1,25 @@
 package com.techacademy.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
-import org.apache.tomcat.util.net.openssl.ciphers.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,16 +27,35 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
-
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.constants.ErrorMessage;
+import com.techacademy.dto.ReportDetail;
+import com.techacademy.dto.ReportListItem;
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Report;
 import com.techacademy.service.EmployeeService;
+import com.techacademy.service.ReportExportService;
+import com.techacademy.service.ReportImportService;
+import com.techacademy.service.ReportListVersion;
+import com.techacademy.service.ReportSearchService;
+import com.techacademy.service.ReportStatsService;
 import com.techacademy.service.ReportService;
+import com.techacademy.service.UserDetail;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 
 //************************************************************************************************************************************************************
 //【基本設定】
 
+@Slf4j
 @Controller
+@Timed("controller.handler") // 画面ごとの処理時間を計測する
 @RequestMapping("reports")
 public class ReportController {
 
@@ -34,41 +65,62 @@ public class ReportController {
     @Autowired
     private EmployeeService employeeService;  // ここで EmployeeService を注入
 
+    @Autowired
+    private ReportImportService reportImportService;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ReportStatsService reportStatsService;
+
+    @Autowired
+    private ReportListVersion reportListVersion;
+
+    // 一覧画面の1ページあたりの件数
+    @Value("${report.list.page-size:20}")
+    private int pageSize;
+
+    // 検索結果は先頭からこの件数までのページを表示する(深いページは検索の負荷が大きく、件数の計算があふれるため)
+    private static final int MAX_SEARCH_RESULTS = 10000;
+
 //************************************************************************************************************************************************************
 //【一覧画面】
 
     @GetMapping
-    public String list(Model model, Principal principal) {
-        System.out.println("デバッグ: 一覧画面表示");
+    public String list(Model model, @AuthenticationPrincipal UserDetail userDetail,
+            @RequestParam(name = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cursorDate,
+            @RequestParam(name = "id", required = false) Integer cursorId, ServletWebRequest webRequest) {
+        log.debug("一覧画面表示");
         // ログインユーザーのユーザー名を取得
-        String username = principal.getName();
+        String username = userDetail.getUsername();
 
-        List<Report> reports;
+        // ログインユーザーが管理者かどうかはログイン時の権限で判定する
+        boolean admin = reportService.isAdmin(userDetail);
 
-
-        // ログインユーザーが管理者かどうかを判断して、リストと、リストサイズを取得する
-        //もしも管理者だったら全ての日報と日報数を取得
-        if (reportService.isAdmin(username)) {
-            model.addAttribute("reportList", reportService.getAllReports());
-            model.addAttribute("listSize", reportService.getAllReports().size()); // ここで全リストのサイズを設定
-            //そうじゃなかったら一般ユーザなので、そのユーザーの日報と日報数を取得
-        } else {
-            model.addAttribute("reportList", reportService.getReportsByUsername(username));
-            model.addAttribute("listSize", reportService.getReportsByUsername(username).size()); // ここでユーザーのリストのサイズを設定
+        // 前回表示してから日報・従業員が変わっていなければ、一覧を取得せずに304を返す
+        long version = reportListVersion.get();
+        if (checkNotModified(webRequest, version, version, admin, cursorDate, cursorId)) {
+            return null;
         }
 
+        // 管理者なら全ての日報、一般ユーザーなら自分の日報を社員情報ごと1ページ分取得する
+        Slice<ReportListItem> page = reportService.getReportPage(username, admin, cursorDate, cursorId, pageSize);
+        List<ReportListItem> reports = page.getContent();
 
-        // ログインユーザーが管理者かどうかを判断して、リストと、リストサイズを取得する
-        if (reportService.isAdmin(username)) {
-            reports = reportService.getAllReports();
-        } else {
-            reports = reportService.getReportsByUsername(username);
-        }
+        model.addAttribute("reportList", reports);
+        model.addAttribute("listSize", reportService.getReportCount(username, admin));
+        model.addAttribute("approximateCount", reportService.isApproximateCount(admin));
 
-        // レポートリストに対して社員名をセットする
-        for (Report report : reports) {
-            Employee employee = employeeService.getEmployeeByCode(report.getEmployeeCode());
-            report.setEmployee(employee);
+        // 次ページがあれば、このページ最後の日報の日付とIDを次ページの開始位置として渡す
+        model.addAttribute("firstPage", cursorDate == null || cursorId == null);
+        if (page.hasNext()) {
+            ReportListItem last = reports.get(reports.size() - 1);
+            model.addAttribute("nextDate", last.reportDate());
+            model.addAttribute("nextId", last.id());
         }
 
         //reportsディレクトリのlist.htmlを返却
@@ -98,37 +150,141 @@ public class ReportController {
         String employeeCode = principal.getName();
 
         if (reportService.isReportDateDuplicate(employeeCode, report.getReportDate())) {
-            result.rejectValue("reportDate", "error.report", "既に登録されている日付です");
+            rejectReportDate(result);
         }
 
         if (result.hasErrors()) {
-            System.out.println("デバッグ: バリデーションエラーが発生しました");
-            result.getFieldErrors().forEach(error -> {
-                System.out.println("エラー: " + error.getField() + " - " + error.getDefaultMessage());
-            });
-            Employee loggedInUser = employeeService.getEmployeeByCode(employeeCode);
-            model.addAttribute("loggedInUserName", loggedInUser.getName());
-            return "reports/new";
+            if (log.isDebugEnabled()) {
+                log.debug("バリデーションエラーが発生しました");
+                result.getFieldErrors().forEach(error -> log.debug("エラー: {} - {}", error.getField(), error.getDefaultMessage()));
+            }
+            return createError(employeeCode, model);
         }
 
         report.setEmployeeCode(employeeCode);
-        System.out.println("デバッグ: 日報を保存します");
-        reportService.saveReport(report);
-        System.out.println("デバッグ: リダイレクトします");
+        try {
+            reportService.saveReport(report);
+        } catch (DataIntegrityViolationException e) {
+            // チェック後に同じ日付の日報が登録された場合(DBの一意制約)
+            rejectReportDate(result);
+            return createError(employeeCode, model);
+        }
+        log.debug("日報を保存しました。ID: {}", report.getId());
         return "redirect:/reports";
     }
 
+    private String createError(String employeeCode, Model model) {
+        Employee loggedInUser = employeeService.getEmployeeByCode(employeeCode);
+        model.addAttribute("loggedInUserName", loggedInUser.getName());
+        return "reports/new";
+    }
+
+//************************************************************************************************************************************************************
+// 【日報一括登録画面】(管理者のみ)
+
+    @GetMapping("/import")
+    public String importForm() {
+        return "reports/import";
+    }
+
+    @PostMapping("/import")
+    public String importReports(@RequestParam("file") MultipartFile file, Model model) throws IOException {
+        ReportImportService.Format format = ReportImportService.Format.of(file.getOriginalFilename());
+        if (file.isEmpty() || format == null) {
+            model.addAttribute("fileError", "CSVまたはJSONファイルを選択してください");
+            return "reports/import";
+        }
+
+        model.addAttribute("result", reportImportService.importReports(file.getInputStream(), format));
+        return "reports/import";
+    }
+
+//************************************************************************************************************************************************************
+// 【日報出力】(管理者のみ)
+
+    // 条件に合う日報をCSV・Excelでダウンロードする(1件ずつレスポンスに書き出す)
+    @GetMapping("/export")
+    public void export(@RequestParam(name = "format", defaultValue = "CSV") ReportExportService.Format format,
+            @RequestParam(name = "employeeCode", required = false) String employeeCode,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            HttpServletResponse response) throws IOException {
+        String filename = "reports_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "." + format.getExtension();
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        String code = employeeCode == null || employeeCode.isBlank() ? null : employeeCode;
+        reportExportService.export(format, code, fromDate, toDate, response.getOutputStream());
+    }
+
+//************************************************************************************************************************************************************
+// 【日報検索画面】
+
+    // タイトル・内容をキーワードで検索する 管理者なら全ての日報、一般ユーザーなら自分の日報が対象
+    @GetMapping("/search")
+    public String search(@RequestParam(name = "q", required = false) String keywords,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @AuthenticationPrincipal UserDetail userDetail, Model model) throws IOException {
+        model.addAttribute("keywords", keywords);
+        model.addAttribute("rebuilding", reportSearchService.isRebuilding());
+        if (keywords == null || keywords.isBlank()) {
+            return "reports/search";
+        }
+
+        String employeeCode = reportService.isAdmin(userDetail) ? null : userDetail.getUsername();
+        int lastPage = Math.max(MAX_SEARCH_RESULTS / pageSize - 1, 0);
+        model.addAttribute("result", reportSearchService.search(keywords, employeeCode, Math.min(Math.max(page, 0), lastPage), pageSize));
+        return "reports/search";
+    }
+
+    // 検索インデックスを再構築する(管理者のみ 別スレッドで実行する)
+    @PostMapping("/search/rebuild")
+    public String rebuildSearchIndex() {
+        reportSearchService.rebuildAsync();
+        return "redirect:/reports/search";
+    }
+
+//************************************************************************************************************************************************************
+// 【提出状況画面】(管理者のみ)
+
+    // 従業員ごとの1か月分の提出状況(日報テーブルは参照せず、集計から表示する)
+    @GetMapping("/stats")
+    public String stats(@RequestParam(name = "month", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            Model model) {
+        YearMonth target = month != null ? month : YearMonth.now();
+        model.addAttribute("month", target);
+        model.addAttribute("previousMonth", target.minusMonths(1));
+        model.addAttribute("nextMonth", target.plusMonths(1));
+        model.addAttribute("days", target.lengthOfMonth());
+        model.addAttribute("today", LocalDate.now());
+        model.addAttribute("statsList", reportStatsService.getMonthStats(employeeService.findAll(), target));
+        return "reports/stats";
+    }
+
+    // 集計を日報テーブルから作り直す
+    @PostMapping("/stats/rebuild")
+    public String rebuildStats(
+            @RequestParam(name = "month", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        reportStatsService.rebuild();
+        return month == null ? "redirect:/reports/stats" : "redirect:/reports/stats?month=" + month;
+    }
+
 //************************************************************************************************************************************************************
 // 【日報詳細画面】
 
     @GetMapping("/detail/{id}")
-    public String detail(@PathVariable Integer id, Model model) {
-        Report report = reportService.getReportById(id);
+    public String detail(@PathVariable Integer id, Model model, ServletWebRequest webRequest) {
+        ReportDetail report = reportService.getReportDetail(id);
         if (report == null) {
             // エラーメッセージを表示するための処理
             model.addAttribute("error", "指定された日報が存在しません");
             return "error";
         }
+        // 前回表示してから日報が更新されていなければ、画面を作らずに304を返す
+        long updatedAt = report.updatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (checkNotModified(webRequest, updatedAt, report.id(), report.updatedAt(), report.employeeName())) {
+            return null;
+        }
         model.addAttribute("report", report);
         return "reports/detail";
     }
@@ -140,6 +296,7 @@ public class ReportController {
             return "redirect:/reports";
         } catch (Exception e) {
             model.addAttribute("deleteError", "削除に失敗しました");
+            model.addAttribute("report", reportService.getReportDetail(id));
             return "reports/detail";
         }
     }
@@ -149,13 +306,11 @@ public class ReportController {
     @GetMapping("/update/{id}")
     public String showUpdateForm(@PathVariable("id") Integer id, Model model) {
         Report report = reportService.getReport(id);
-        System.out.println("デバッグ: 取得したレポートの日付: " + report.getReportDate());
+        log.debug("取得したレポートの日付: {}", report.getReportDate());
         model.addAttribute("report", report);
 
         // 日報を書いた人の氏名を取得してモデルに追加
-        Employee reportAuthor = report.getEmployee();
-        String reportAuthorName = reportAuthor != null ? reportAuthor.getName() : "不明";
-        model.addAttribute("reportAuthorName", reportAuthorName);
+        model.addAttribute("reportAuthorName", getAuthorName(report));
 
         // フォーマット済みの日付をモデルに追加
         String formattedDate = report.getReportDate().toString();
@@ -166,11 +321,10 @@ public class ReportController {
 
     @PostMapping("/update/{id}")
     public String update(@PathVariable("id") Integer id, @Validated Report report, BindingResult res, Model model) {
-        System.out.println("デバッグ: updateメソッドが呼び出されました。ID: " + id);
-        System.out.println("デバッグ: 更新するレポートの日付: " + report.getReportDate());
+        log.debug("updateメソッドが呼び出されました。ID: {} 日付: {}", id, report.getReportDate());
 
         if (res.hasErrors()) {
-            System.out.println("デバッグ: バリデーションエラーが発生しました。");
+            log.debug("バリデーションエラーが発生しました。ID: {}", id);
             model.addAttribute("report", report);
             return "reports/update";
         }
@@ -178,17 +332,27 @@ public class ReportController {
         try {
             // 既存のレポートを取得してから、更新する
             Report existingReport = reportService.getReport(id);
-            System.out.println("デバッグ: 既存のレポートを取得しました。Report: " + existingReport);
+            // エンティティの toString は社員情報までたどるため、IDだけを出力する
+            log.debug("既存のレポートを取得しました。ID: {}", existingReport.getId());
+
+            if (reportService.isReportDateDuplicate(existingReport.getEmployeeCode(), report.getReportDate(), id)) {
+                return updateDateError(existingReport, report, res, model);
+            }
 
             existingReport.setReportDate(report.getReportDate());
             existingReport.setTitle(report.getTitle());
             existingReport.setContent(report.getContent());
 
             // ここで更新
-            reportService.update(existingReport);
-            System.out.println("デバッグ: レポートを更新しました。");
+            try {
+                reportService.update(existingReport);
+            } catch (DataIntegrityViolationException e) {
+                // チェック後に同じ日付の日報が登録された場合(DBの一意制約)
+                return updateDateError(existingReport, report, res, model);
+            }
+            log.debug("レポートを更新しました。ID: {}", id);
         } catch (Exception e) {
-            System.out.println("エラー: 更新に失敗しました。" + e.getMessage());
+            log.warn("日報の更新に失敗しました。ID: {}", id, e);
             model.addAttribute("error", "更新に失敗しました。");
             model.addAttribute("report", report);
             return "reports/update";
@@ -197,6 +361,39 @@ public class ReportController {
         return "redirect:/reports";
     }
 
+    private String updateDateError(Report existingReport, Report report, BindingResult res, Model model) {
+        rejectReportDate(res);
+        model.addAttribute("report", report);
+        model.addAttribute("reportAuthorName", getAuthorName(existingReport));
+        model.addAttribute("formattedDate", report.getReportDate().toString());
+        return "reports/update";
+    }
+
+    // 日報を書いた人の氏名 日報の社員情報は読み込まず、キャッシュした従業員から取得する
+    private String getAuthorName(Report report) {
+        Employee reportAuthor = employeeService.findByCode(report.getEmployeeCode());
+        return reportAuthor != null ? reportAuthor.getName() : "不明";
+    }
+
+    // 条件付きGET ブラウザが持っている画面と内容が同じなら304を返す(trueの場合はテンプレートを処理しない)
+    // 画面にはログインユーザーの情報とCSRFトークンが含まれるため、ETagにはユーザーとセッションも含める
+    private boolean checkNotModified(ServletWebRequest webRequest, long lastModified, Object... keys) {
+        // ブラウザに保存させ、表示のたびに再検証させる(Spring Securityの初期値は no-store)
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+        StringBuilder source = new StringBuilder(webRequest.getRemoteUser()).append('|').append(webRequest.getSessionId());
+        for (Object key : keys) {
+            source.append('|').append(key);
+        }
+        String etag = "W/\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        return webRequest.checkNotModified(etag, lastModified);
+    }
+
+    // 同一日付チェックのエラーメッセージを日付の項目に表示する
+    private void rejectReportDate(BindingResult result) {
+        result.rejectValue("reportDate", "error.report", ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR));
+    }
+
 
 
 
@@ -0,0 +1,9 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 日報詳細画面の表示項目(読み取り専用)
+public record ReportDetail(Integer id, LocalDate reportDate, String title, String content, String employeeName,
+        LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
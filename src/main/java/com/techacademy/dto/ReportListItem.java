@@ -0,0 +1,7 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+
+// 日報一覧・検索結果の1行(画面に表示する項目のみ 社員情報は氏名だけを取得する)
+public record ReportListItem(Integer id, LocalDate reportDate, String title, String employeeName) {
+}
@@ -3,6 +3,8 @@ package com.techacademy.entity;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.validator.constraints.Length;
 
@@ -18,6 +20,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "employees")
+// 2次キャッシュ 更新はまれなため、更新時はキャッシュを消すだけにする
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @SQLRestriction("delete_flg = false")
 public class Employee {
 
@@ -2,26 +2,42 @@ package com.techacademy.entity;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 import org.hibernate.validator.constraints.Length;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+        // 一覧のページ取得用(全件・社員ごと)
+        @Index(name = "idx_reports_list", columnList = "delete_flg, report_date, id"),
+        @Index(name = "idx_reports_employee_list", columnList = "employee_code, delete_flg, report_date, id") },
+        // 同じ社員・同じ日付の日報は1件まで(論理削除した日報は active_flg が NULL になるため対象外)
+        uniqueConstraints = @UniqueConstraint(name = "uk_reports_employee_date", columnNames = { "employee_code", "report_date", "active_flg" }))
 @SQLRestriction("delete_flg = false")
+// 2次キャッシュ 論理削除は ReportRepository.softDelete で行う(キャッシュは @SQLRestriction を通らないため)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Report {
 
     // ID
@@ -55,6 +71,13 @@ public class Report {
     @Column(columnDefinition="TINYINT", nullable = false)
     private boolean deleteFlg;
 
+    // 有効フラグ(削除されていない日報は1、削除済みはNULL DBが削除フラグから自動で設定する)
+    // 日付の重複チェックを一意制約で行うための列 アプリからは登録・更新しない
+    @Column(name = "active_flg", columnDefinition = "TINYINT GENERATED ALWAYS AS (CASE WHEN delete_flg = 0 THEN 1 ELSE NULL END)",
+            insertable = false, updatable = false)
+    @JdbcTypeCode(SqlTypes.TINYINT)
+    private Integer activeFlg;
+
     // 登録日時
     @Column(nullable = false, updatable = false) // 更新不可に設定
     @CreationTimestamp
@@ -65,8 +88,11 @@ public class Report {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    // Employee リレーション
-    @ManyToOne
+    // Employee リレーション 必要な場合だけ読み込む(一覧・詳細は氏名だけを ReportRepository で取得する)
+    // toString・equals・hashCode で社員情報を読み込まないように対象外にする
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "employee_code", referencedColumnName = "code", insertable = false, updatable = false)
     private Employee employee;
 }
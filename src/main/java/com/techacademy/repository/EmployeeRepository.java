@@ -1,8 +1,19 @@
 package com.techacademy.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
 import com.techacademy.entity.Employee;
 
 public interface EmployeeRepository extends JpaRepository<Employee, String> {
     Employee findByCode(String code);
+
+    // 従業員の全件数(一覧を読み込まずにCOUNTで取得する)
+    long countByDeleteFlgFalse();
+
+    // 社員番号の一覧(日報の一括登録で社員番号の存在チェックに使う)
+    @Query("SELECT e.code FROM Employee e")
+    List<String> findAllCodes();
 }
@@ -1,14 +1,95 @@
 package com.techacademy.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import com.techacademy.entity.Report;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.techacademy.dto.ReportDetail;
+import com.techacademy.dto.ReportListItem;
+import com.techacademy.entity.Report;
+
+import jakarta.persistence.QueryHint;
 
 public interface ReportRepository extends JpaRepository<Report, Integer> {
+
+    // 一覧に表示する項目(削除された社員の日報も表示するため、社員は外部結合する)
+    String LIST_ITEM_QUERY = "SELECT new com.techacademy.dto.ReportListItem(r.id, r.reportDate, r.title, e.name)"
+            + " FROM Report r LEFT JOIN r.employee e";
+
+    // 一覧表示用 社員情報も同じクエリでまとめて取得する(社員ごとの追加クエリを発生させない)
+    @EntityGraph(attributePaths = "employee")
     List<Report> findAllByOrderByReportDateDesc();
+
+    @EntityGraph(attributePaths = "employee")
     List<Report> findByEmployeeCodeOrderByReportDateDesc(String employeeCode);
 
+    // 一覧のページ取得(キーセット方式)
+    // 1ページ目は先頭から、2ページ目以降は前ページ最後の(日付, ID)より後ろを取得する
+    // (report_date, id)の複合インデックスを使うため、何ページ目でも同じコストで取得できる
+    // 一覧に表示する項目だけを取得する(社員のエンティティ・パスワードは読み込まない)
+    @Query(LIST_ITEM_QUERY + " ORDER BY r.reportDate DESC, r.id DESC")
+    Slice<ReportListItem> findByOrderByReportDateDescIdDesc(Pageable pageable);
+
+    @Query(LIST_ITEM_QUERY + " WHERE r.reportDate <= :reportDate"
+            + " AND (r.reportDate < :reportDate OR (r.reportDate = :reportDate AND r.id < :id))"
+            + " ORDER BY r.reportDate DESC, r.id DESC")
+    Slice<ReportListItem> findNextPage(@Param("reportDate") LocalDate reportDate, @Param("id") Integer id, Pageable pageable);
+
+    // 一般ユーザーが最も多く開く自分の一覧の1ページ目は、クエリキャッシュに載せる
+    // (reportsテーブルが更新されるとHibernateが自動で無効にする)
+    @Query(LIST_ITEM_QUERY + " WHERE r.employeeCode = :employeeCode ORDER BY r.reportDate DESC, r.id DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Slice<ReportListItem> findByEmployeeCodeOrderByReportDateDescIdDesc(@Param("employeeCode") String employeeCode,
+            Pageable pageable);
+
+    @Query(LIST_ITEM_QUERY + " WHERE r.employeeCode = :employeeCode AND r.reportDate <= :reportDate"
+            + " AND (r.reportDate < :reportDate OR (r.reportDate = :reportDate AND r.id < :id))"
+            + " ORDER BY r.reportDate DESC, r.id DESC")
+    Slice<ReportListItem> findNextPageByEmployeeCode(@Param("employeeCode") String employeeCode,
+            @Param("reportDate") LocalDate reportDate, @Param("id") Integer id, Pageable pageable);
+
+    // 検索結果の表示用(IDを指定して一覧と同じ項目を取得する 並び順は呼び出し側で検索結果の順にする)
+    @Query(LIST_ITEM_QUERY + " WHERE r.id IN :ids")
+    List<ReportListItem> findListItemsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // 詳細画面の表示用 同じ日報を繰り返し開く場合はクエリキャッシュから返す
+    @Query("SELECT new com.techacademy.dto.ReportDetail(r.id, r.reportDate, r.title, r.content, e.name, r.createdAt, r.updatedAt)"
+            + " FROM Report r LEFT JOIN r.employee e WHERE r.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<ReportDetail> findDetailById(@Param("id") Integer id);
+
+    // 一覧の全件数(一覧を読み込まずにCOUNTで取得する)
+    long countByDeleteFlgFalse();
+
+    long countByEmployeeCodeAndDeleteFlgFalse(String employeeCode);
+
+    // 論理削除 一括更新のため、Hibernateが日報の2次キャッシュとクエリキャッシュを無効にする
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Report r SET r.deleteFlg = true, r.updatedAt = :updatedAt WHERE r.id = :id AND r.deleteFlg = false")
+    int softDelete(@Param("id") Integer id, @Param("updatedAt") LocalDateTime updatedAt);
+
     // 新しいメソッドを追加
     List<Report> findByEmployeeCodeAndReportDate(String employeeCode, LocalDate reportDate);
+
+    // 日付の重複チェック(一意制約のインデックスで1件見つかった時点で終了する)
+    boolean existsByEmployeeCodeAndReportDate(String employeeCode, LocalDate reportDate);
+
+    // 更新時の日付の重複チェック(更新する日報自身を除く)
+    boolean existsByEmployeeCodeAndReportDateAndIdNot(String employeeCode, LocalDate reportDate, Integer id);
+
+    // DBに保存されている日報の日付(画面で変更する前の日付を取得するため、エンティティを経由しない)
+    @Query("SELECT r.reportDate FROM Report r WHERE r.id = :id")
+    Optional<LocalDate> findReportDateById(@Param("id") Integer id);
 }
@@ -0,0 +1,100 @@
+package com.techacademy.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.constants.ErrorMessage;
+
+import lombok.Getter;
+
+// 従業員の一括登録の結果(件数、処理時間、行ごとの結果)
+@Getter
+public class EmployeeImportResult {
+
+    // 読み込んだ件数
+    private int total;
+    // 登録した件数
+    private int imported;
+    // エラーの件数
+    private int errorCount;
+    // 処理時間(ミリ秒) 全体、パスワードのハッシュ化、登録(INSERT)
+    private long elapsedMillis;
+    private long hashMillis;
+    private long insertMillis;
+    // ハッシュ化したパスワードの件数
+    private int hashed;
+    // 行ごとの結果(登録できた行は SUCCESS)
+    private final List<RowResult> rows = new ArrayList<RowResult>();
+
+    @Getter
+    public static class RowResult {
+        // 行番号(ヘッダーを1行目とする)
+        private final long line;
+        private final String code;
+        private ErrorKinds result;
+        // エラーの内容(登録できた行はnull)
+        private String message;
+
+        RowResult(long line, String code) {
+            this.line = line;
+            this.code = code;
+        }
+
+        public boolean isSuccess() {
+            return result == ErrorKinds.SUCCESS;
+        }
+    }
+
+    RowResult addRow(long line, String code) {
+        total++;
+        RowResult row = new RowResult(line, code);
+        rows.add(row);
+        return row;
+    }
+
+    // ファイル全体のエラー(ヘッダーがない場合など 件数には数えない)
+    void fileError(long line, String message) {
+        RowResult row = new RowResult(line, null);
+        rows.add(row);
+        error(row, ErrorKinds.INPUT_ERROR, message);
+    }
+
+    void success(RowResult row) {
+        imported++;
+        row.result = ErrorKinds.SUCCESS;
+    }
+
+    void error(RowResult row, ErrorKinds result, String message) {
+        errorCount++;
+        row.result = result;
+        row.message = message;
+    }
+
+    void error(RowResult row, ErrorKinds result) {
+        error(row, result, ErrorMessage.getErrorValue(result));
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void setHashed(int hashed, long hashMillis) {
+        this.hashed = hashed;
+        this.hashMillis = hashMillis;
+    }
+
+    void setInsertMillis(long insertMillis) {
+        this.insertMillis = insertMillis;
+    }
+
+    // 1秒あたりの登録件数
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? imported * 1000L : imported * 1000L / elapsedMillis;
+    }
+
+    // 1秒あたりのパスワードのハッシュ化の件数
+    public long getHashesPerSecond() {
+        return hashMillis == 0 ? hashed * 1000L : hashed * 1000L / hashMillis;
+    }
+}
@@ -0,0 +1,296 @@
+package com.techacademy.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.entity.Employee;
+import com.techacademy.entity.Employee.Role;
+import com.techacademy.service.EmployeeImportResult.RowResult;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+//************************************************************************************************************************************************************
+//【従業員の一括登録】
+// CSVを読み込んで画面から登録する場合と同じチェックを行い、チェックを通った従業員を1つのトランザクションで登録する
+// 社員番号の重複は1回のIN検索で確認し、パスワードのハッシュ化(BCrypt)は件数が多いと時間がかかるため複数スレッドで行う
+
+@Slf4j
+@Service
+public class EmployeeImportService {
+
+    // CSVのヘッダー(1行目)
+    public static final String[] CSV_HEADER = { "code", "name", "role", "password" };
+
+    private static final String INSERT_SQL = "INSERT INTO employees(code, name, role, password, delete_flg, created_at,"
+            + " updated_at) VALUES (?, ?, ?, ?, 0, ?, ?)";
+
+    // 削除済みの従業員の社員番号も使えないため、削除フラグに関係なく検索する
+    private static final String EXISTING_SQL = "SELECT code FROM employees WHERE code IN (:codes)";
+
+    // エラーメッセージに表示する項目名
+    private static final Map<String, String> FIELD_NAMES = Map.of("code", "社員番号", "name", "氏名");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordPolicy passwordPolicy;
+    private final Validator validator;
+    private final EntityManagerFactory entityManagerFactory;
+    // 1回のバッチ更新で登録する件数
+    private final int batchSize;
+    // 1回で登録できる件数
+    private final int maxRows;
+    // パスワードのハッシュ化に使うスレッドプール(スレッド数の上限を決めて、ログインなど他の処理のCPUを残す)
+    private final ForkJoinPool hashPool;
+
+    @Autowired
+    public EmployeeImportService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            PasswordEncoder passwordEncoder, PasswordPolicy passwordPolicy, Validator validator,
+            EntityManagerFactory entityManagerFactory, @Value("${employee.import.batch-size:1000}") int batchSize,
+            @Value("${employee.import.max-rows:5000}") int maxRows,
+            @Value("${employee.import.hash-parallelism:0}") int hashParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordPolicy = passwordPolicy;
+        this.validator = validator;
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+        // 0 の場合はCPUのコア数の半分
+        int parallelism = hashParallelism > 0 ? hashParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void close() {
+        hashPool.shutdown();
+    }
+
+    public EmployeeImportResult importEmployees(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        EmployeeImportResult result = new EmployeeImportResult();
+
+        List<Row> rows = readCsv(input, result);
+        excludeExisting(rows, result);
+        if (!rows.isEmpty()) {
+            hashPasswords(rows, result);
+            insert(rows, result);
+
+            // JDBCで直接登録したため、従業員の件数などのクエリキャッシュを破棄する
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("従業員の一括登録が完了しました。件数: {} 登録: {} エラー: {} 処理時間: {}ms ({}件/秒) ハッシュ化: {}ms ({}件/秒) 登録: {}ms",
+                result.getTotal(), result.getImported(), result.getErrorCount(), result.getElapsedMillis(),
+                result.getRowsPerSecond(), result.getHashMillis(), result.getHashesPerSecond(), result.getInsertMillis());
+        return result;
+    }
+
+    // CSVを読み込み、チェックを通った従業員を返す
+    private List<Row> readCsv(InputStream input, EmployeeImportResult result) throws IOException {
+        List<Row> rows = new ArrayList<Row>();
+        // ファイル内の社員番号の重複チェック用
+        Set<String> codes = new HashSet<String>();
+
+        CSVFormat format = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build();
+        try (CSVParser parser = format
+                .parse(ReportImportService.skipBom(new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            for (String column : CSV_HEADER) {
+                if (!parser.getHeaderMap().containsKey(column)) {
+                    result.fileError(1, "1行目に項目名(" + String.join(",", CSV_HEADER) + ")を指定してください");
+                    return rows;
+                }
+            }
+            for (CSVRecord record : parser) {
+                // 行番号はヘッダーを1行目として数える
+                long line = record.getRecordNumber() + 1;
+                if (result.getTotal() >= maxRows) {
+                    result.fileError(line, "一度に登録できるのは" + maxRows + "件までです(" + line + "行目以降は登録していません)");
+                    break;
+                }
+                Row row = check(result.addRow(line, value(record, "code")), value(record, "name"),
+                        value(record, "role"), value(record, "password"), result);
+                if (row == null) {
+                    continue;
+                }
+                if (!codes.add(row.employee.getCode())) {
+                    result.error(row.result, ErrorKinds.DUPLICATE_ERROR, "ファイル内で同じ社員番号が重複しています");
+                    continue;
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // 画面から登録する場合と同じチェック(Employeeの入力チェック、パスワードチェック)
+    private Row check(RowResult rowResult, String name, String role, String password, EmployeeImportResult result) {
+        Employee employee = new Employee();
+        employee.setCode(rowResult.getCode());
+        employee.setName(name);
+
+        Set<ConstraintViolation<Employee>> violations = validator.validate(employee);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<Employee> violation = violations.iterator().next();
+            String field = violation.getPropertyPath().toString();
+            result.error(rowResult, ErrorKinds.INPUT_ERROR,
+                    FIELD_NAMES.getOrDefault(field, field) + ": " + violation.getMessage());
+            return null;
+        }
+        employee.setRole(role(role));
+        if (employee.getRole() == null) {
+            result.error(rowResult, ErrorKinds.INPUT_ERROR, "権限は ADMIN(管理者) または GENERAL(一般) を指定してください");
+            return null;
+        }
+        ErrorKinds passwordResult = passwordPolicy.validate(password);
+        if (passwordResult != ErrorKinds.CHECK_OK) {
+            result.error(rowResult, passwordResult);
+            return null;
+        }
+        employee.setPassword(password);
+        return new Row(rowResult, employee);
+    }
+
+    // 登録済みの社員番号をまとめて検索し、エラーにして取り除く
+    private void excludeExisting(List<Row> rows, EmployeeImportResult result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Set<String> codes = new HashSet<String>();
+        for (Row row : rows) {
+            codes.add(row.employee.getCode());
+        }
+        Set<String> existing = new HashSet<String>(
+                jdbcTemplate.queryForList(EXISTING_SQL, new MapSqlParameterSource("codes", codes), String.class));
+        rows.removeIf(row -> {
+            if (existing.contains(row.employee.getCode())) {
+                result.error(row.result, ErrorKinds.DUPLICATE_ERROR);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // パスワードをハッシュ化する(hashPool のスレッド数まで同時に処理する)
+    private void hashPasswords(List<Row> rows, EmployeeImportResult result) {
+        long start = System.nanoTime();
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(rows.size());
+        for (Row row : rows) {
+            Employee employee = row.employee;
+            tasks.add(hashPool.submit(() -> employee.setPassword(passwordEncoder.encode(employee.getPassword()))));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        result.setHashed(rows.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // batchSize件ずつまとめて、1つのトランザクションで登録する
+    private void insert(List<Row> rows, EmployeeImportResult result) {
+        long start = System.nanoTime();
+        List<Row> inserted = rows;
+        try {
+            insertAll(rows);
+        } catch (DuplicateKeyException e) {
+            // 重複チェックの後に同じ社員番号が登録された場合は、全体がロールバックされるため、
+            // 1件ずつ登録し直し、重複した行だけをエラーにする
+            log.info("従業員の一括登録で社員番号の重複が発生したため、1件ずつ登録します。件数: {}", rows.size());
+            inserted = insertEach(rows, result);
+        }
+        for (Row row : inserted) {
+            result.success(row.result);
+        }
+        result.setInsertMillis((System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 1件ずつ登録し、登録できた行を返す 重複した行は登録済みの社員番号のエラーにする
+    private List<Row> insertEach(List<Row> rows, EmployeeImportResult result) {
+        List<Row> inserted = new ArrayList<Row>(rows.size());
+        for (Row row : rows) {
+            try {
+                insertAll(List.of(row));
+                inserted.add(row);
+            } catch (DuplicateKeyException e) {
+                result.error(row.result, ErrorKinds.DUPLICATE_ERROR);
+            }
+        }
+        return inserted;
+    }
+
+    private void insertAll(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, rows,
+                batchSize, (statement, row) -> {
+                    Employee employee = row.employee;
+                    statement.setString(1, employee.getCode());
+                    statement.setString(2, employee.getName());
+                    statement.setString(3, employee.getRole().name());
+                    statement.setString(4, employee.getPassword());
+                    statement.setTimestamp(5, now);
+                    statement.setTimestamp(6, now);
+                }));
+    }
+
+    // 権限は ADMIN・GENERAL か、画面の表示名(管理者・一般)で指定する
+    private static Role role(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (Role role : Role.values()) {
+            if (role.name().equalsIgnoreCase(value.trim()) || role.getValue().equals(value.trim())) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    private static String value(CSVRecord record, String column) {
+        return record.isSet(column) ? record.get(column) : null;
+    }
+
+    // 登録する従業員と、その行の結果
+    private static class Row {
+        private final RowResult result;
+        private final Employee employee;
+
+        Row(RowResult result, Employee employee) {
+            this.result = result;
+            this.employee = employee;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.techacademy.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.techacademy.entity.Employee;
+
+import lombok.Getter;
+
+// 従業員1人の1か月分の日報の提出状況
+@Getter
+public class EmployeeMonthStats {
+
+    private final Employee employee;
+    private final YearMonth month;
+    // 日報を提出した日のビット(1日が最下位ビット)
+    private final int dayBits;
+
+    public EmployeeMonthStats(Employee employee, YearMonth month, int dayBits) {
+        this.employee = employee;
+        this.month = month;
+        this.dayBits = dayBits;
+    }
+
+    // 提出した日数(同じ日の日報は1件までのため件数と同じ)
+    public int getCount() {
+        return Integer.bitCount(dayBits);
+    }
+
+    // 指定した日(1から)に提出したかどうか
+    public boolean isSubmitted(int day) {
+        return (dayBits & 1 << day - 1) != 0;
+    }
+
+    // 平日(月～金)で、指定した日までに提出していない日
+    public List<Integer> getMissingDays(LocalDate today) {
+        List<Integer> missing = new ArrayList<Integer>();
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            LocalDate date = month.atDay(day);
+            if (date.isAfter(today)) {
+                break;
+            }
+            if (isWeekday(date) && !isSubmitted(day)) {
+                missing.add(day);
+            }
+        }
+        return missing;
+    }
+
+    // 週(月曜始まり)ごとの提出した日数 月の最初の週から順に返す
+    public List<Integer> getWeeklyCounts() {
+        LocalDate firstMonday = month.atDay(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            int week = (int) ChronoUnit.WEEKS.between(firstMonday, month.atDay(day));
+            if (counts.size() <= week) {
+                counts.add(0);
+            }
+            if (isSubmitted(day)) {
+                counts.set(week, counts.get(week) + 1);
+            }
+        }
+        return counts;
+    }
+
+    private static boolean isWeekday(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+}
@@ -3,10 +3,12 @@ package com.techacademy.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -19,6 +21,8 @@ import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 
@@ -26,17 +30,28 @@ import org.springframework.web.bind.annotation.PostMapping;
 
 @Service
 public class EmployeeService {
+    // 従業員のキャッシュ名(社員番号がキー 登録・更新・削除時に破棄する)
+    public static final String EMPLOYEE_CACHE = "employees";
+
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final SessionRegistry sessionRegistry;
+    private final PasswordPolicy passwordPolicy;
+    private final ReportListVersion reportListVersion;
 
     @Autowired
-    public EmployeeService(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder) {
+    public EmployeeService(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder,
+            SessionRegistry sessionRegistry, PasswordPolicy passwordPolicy, ReportListVersion reportListVersion) {
         this.employeeRepository = employeeRepository;
         this.passwordEncoder = passwordEncoder;
+        this.sessionRegistry = sessionRegistry;
+        this.passwordPolicy = passwordPolicy;
+        this.reportListVersion = reportListVersion;
     }
 
     // 従業員保存
     @Transactional
+    @CacheEvict(cacheNames = { EMPLOYEE_CACHE, UserDetailService.USER_CACHE }, key = "#employee.code")
     public ErrorKinds save(Employee employee) {
         // パスワードチェック
         ErrorKinds result = employeePasswordCheck(employee);
@@ -68,6 +83,8 @@ public class EmployeeService {
 //【従業員取得メソッド（ユーザー名で）】
 //*************************************************************************************************************************************************************
 
+    @Transactional
+    @Cacheable(cacheNames = EMPLOYEE_CACHE, unless = "#result == null")
     public Employee getEmployeeByCode(String code) {
         return employeeRepository.findByCode(code);
     }
@@ -84,6 +101,7 @@ public class EmployeeService {
 //*************************************************************************************************************************************************************
 
     @Transactional
+    @CacheEvict(cacheNames = { EMPLOYEE_CACHE, UserDetailService.USER_CACHE }, key = "#updatedEmployee.code")
     public void update(Employee updatedEmployee) {
         // まず、更新対象の従業員をデータベースから取得
         Employee existingEmployee = employeeRepository.findById(updatedEmployee.getCode()).orElse(null);
@@ -93,6 +111,12 @@ public class EmployeeService {
             // 更新された名前を既存の従業員情報にセットする
             existingEmployee.setName(updatedEmployee.getName());
 
+            // 権限が変わる場合は、その従業員のログイン中のセッションを更新完了後に失効させる
+            // (ログイン時の権限で画面の表示範囲を判定しているため、再ログインで新しい権限を反映させる)
+            if (existingEmployee.getRole() != updatedEmployee.getRole()) {
+                expireSessionsAfterCommit(existingEmployee.getCode());
+            }
+
             // 更新された権限を既存の従業員情報にセットする
             existingEmployee.setRole(updatedEmployee.getRole());
 
@@ -104,12 +128,26 @@ public class EmployeeService {
 
             // 最後に、データベースに更新された従業員情報を保存する
             employeeRepository.save(existingEmployee);
+            // 日報一覧には氏名を表示するため、一覧の版を進める
+            reportListVersion.changed();
         } else {
             // もしデータベースに該当する従業員が見つからなかったら、エラーを投げる
             throw new EntityNotFoundException("Employee with code " + updatedEmployee.getCode() + " not found");
         }
     }
 
+    // パスワードのハッシュだけを置き換える(ログイン時の作り直し 従業員の更新ではないため更新日時は変えない)
+    @Transactional
+    @CacheEvict(cacheNames = { EMPLOYEE_CACHE, UserDetailService.USER_CACHE }, key = "#code")
+    public Employee upgradePassword(String code, String encodedPassword) {
+        Employee employee = employeeRepository.findById(code).orElse(null);
+
+        if (employee != null) {
+            employee.setPassword(encodedPassword);
+        }
+        return employee;
+    }
+
     // 更新時の従業員パスワードチェック
     public ErrorKinds employeePasswordCheckForUpdate(String password) {
         // もしパスワードが空欄やnullだったら、チェックOKを返す
@@ -117,20 +155,8 @@ public class EmployeeService {
             return ErrorKinds.CHECK_OK;
         }
 
-        // パスワードの長さが8文字未満または16文字を超えていたら、桁数チェックエラーを返す
-        if (password.length() < 8 || password.length() > 16) {
-            return ErrorKinds.RANGECHECK_ERROR;
-        }
-
-        // パスワードが半角英数字でなかったら、半角英数字チェックエラーを返す
-        Pattern pattern = Pattern.compile("^[A-Za-z0-9]+$");
-        Matcher matcher = pattern.matcher(password);
-        if (!matcher.matches()) {
-            return ErrorKinds.HALFSIZE_ERROR;
-        }
-
-        // 問題なければ、チェックOKを返す
-        return ErrorKinds.CHECK_OK;
+        // 登録時と同じルールでチェックする(半角英数字チェック、8文字～16文字チェック)
+        return passwordPolicy.validate(password);
     }
 
     // 従業員パスワードの暗号化
@@ -138,6 +164,22 @@ public class EmployeeService {
         return passwordEncoder.encode(password);
     }
 
+    // 指定した従業員のログイン中のセッションを、トランザクションのコミット後に失効させる
+    private void expireSessionsAfterCommit(String code) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Object principal : sessionRegistry.getAllPrincipals()) {
+                    if (principal instanceof UserDetail userDetail && code.equals(userDetail.getUsername())) {
+                        for (SessionInformation session : sessionRegistry.getAllSessions(principal, false)) {
+                            session.expireNow();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
 //*************************************************************************************************************************************************************
 //【更新メソッド】
 //*************************************************************************************************************************************************************
@@ -151,25 +193,38 @@ public class EmployeeService {
 //*************************************************************************************************************************************************************
 
     @Transactional
+    @CacheEvict(cacheNames = { EMPLOYEE_CACHE, UserDetailService.USER_CACHE }, key = "#code")
     public ErrorKinds delete(String code, UserDetail userDetail) {
         // 自分を削除しようとした場合はエラーメッセージを表示
         if (code.equals(userDetail.getEmployee().getCode())) {
             return ErrorKinds.LOGINCHECK_ERROR;
         }
-        Employee employee = findByCode(code);
+        // キャッシュした従業員ではなく、DBから取得した従業員を更新する
+        Employee employee = employeeRepository.findById(code).orElse(null);
         LocalDateTime now = LocalDateTime.now();
         employee.setUpdatedAt(now);
         employee.setDeleteFlg(true);
+        reportListVersion.changed();
 
         return ErrorKinds.SUCCESS;
     }
 
     // 従業員一覧表示処理
+    @Transactional(readOnly = true)
     public List<Employee> findAll() {
         return employeeRepository.findAll();
     }
 
-    // 1件を検索
+    // 従業員の全件数
+    @Transactional(readOnly = true)
+    public long getEmployeeCount() {
+        return employeeRepository.countByDeleteFlgFalse();
+    }
+
+    // 1件を検索 見つかった従業員はキャッシュする
+    // ログイン・更新処理やキャッシュに使うため、レプリカではなくプライマリから読む(readOnlyにしない)
+    @Transactional
+    @Cacheable(cacheNames = EMPLOYEE_CACHE, unless = "#result == null")
     public Employee findByCode(String code) {
         // findByIdで検索
         Optional<Employee> option = employeeRepository.findById(code);
@@ -180,35 +235,16 @@ public class EmployeeService {
 
     // 従業員パスワードチェック
     private ErrorKinds employeePasswordCheck(Employee employee) {
-        // 従業員パスワードの半角英数字チェック処理
-        if (isHalfSizeCheckError(employee)) {
-            return ErrorKinds.HALFSIZE_ERROR;
-        }
-
-        // 従業員パスワードの8文字～16文字チェック処理
-        if (isOutOfRangePassword(employee)) {
-            return ErrorKinds.RANGECHECK_ERROR;
+        // 従業員パスワードの半角英数字チェック処理、8文字～16文字チェック処理
+        ErrorKinds result = passwordPolicy.validate(employee.getPassword());
+        if (ErrorKinds.CHECK_OK != result) {
+            return result;
         }
 
         employee.setPassword(passwordEncoder.encode(employee.getPassword()));
 
         return ErrorKinds.CHECK_OK;
     }
-
-    // 従業員パスワードの半角英数字チェック処理
-    private boolean isHalfSizeCheckError(Employee employee) {
-        // 半角英数字チェック
-        Pattern pattern = Pattern.compile("^[A-Za-z0-9]+$");
-        Matcher matcher = pattern.matcher(employee.getPassword());
-        return !matcher.matches();
-    }
-
-    // 従業員パスワードの8文字～16文字チェック処理
-    public boolean isOutOfRangePassword(Employee employee) {
-        // 桁数チェック
-        int passwordLength = employee.getPassword().length();
-        return passwordLength < 8 || 16 < passwordLength;
-    }
 }
 
 //*************************************************************************************************************************************************************
@@ -0,0 +1,43 @@
+package com.techacademy.service;
+
+import org.springframework.stereotype.Component;
+
+import com.techacademy.constants.ErrorKinds;
+
+// 従業員パスワードの入力ルール(半角英数字のみ、8文字～16文字)
+// 登録・更新の両方から使う 正規表現を使わず1文字ずつ判定するため、チェックのたびにオブジェクトを生成しない
+@Component
+public class PasswordPolicy {
+
+    // パスワードの最小桁数
+    public static final int MIN_LENGTH = 8;
+    // パスワードの最大桁数
+    public static final int MAX_LENGTH = 16;
+
+    // パスワードチェック 問題なければCHECK_OKを返す
+    public ErrorKinds validate(String password) {
+        // 空白チェック
+        if (password == null || password.isEmpty()) {
+            return ErrorKinds.BLANK_ERROR;
+        }
+
+        // 半角英数字チェック
+        int length = password.length();
+        for (int i = 0; i < length; i++) {
+            if (!isHalfSizeAlphanumeric(password.charAt(i))) {
+                return ErrorKinds.HALFSIZE_ERROR;
+            }
+        }
+
+        // 8文字～16文字チェック
+        if (length < MIN_LENGTH || MAX_LENGTH < length) {
+            return ErrorKinds.RANGECHECK_ERROR;
+        }
+
+        return ErrorKinds.CHECK_OK;
+    }
+
+    private static boolean isHalfSizeAlphanumeric(char c) {
+        return ('A' <= c && c <= 'Z') || ('a' <= c && c <= 'z') || ('0' <= c && c <= '9');
+    }
+}
@@ -0,0 +1,182 @@
+package com.techacademy.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.techacademy.entity.Report;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+
+//************************************************************************************************************************************************************
+//【日報の出力】
+// 日報を1件ずつ読み込みながらCSV・Excelに書き出す(全件をメモリに載せない)
+// MySQLの場合、フェッチサイズに Integer.MIN_VALUE を指定すると1行ずつ受信する(Connector/Jのストリーミング)
+
+@Slf4j
+@Service
+public class ReportExportService {
+
+    public static enum Format {
+        CSV("text/csv; charset=UTF-8", "csv"), XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private String contentType;
+        private String extension;
+
+        private Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return this.contentType;
+        }
+
+        public String getExtension() {
+            return this.extension;
+        }
+    }
+
+    // 出力する項目 一括登録(ReportImportService)でそのまま読み込める項目名にする
+    public static final String[] HEADER = { "report_date", "employee_code", "employee_name", "title", "content" };
+
+    // 削除された社員の日報も出力するため、社員は外部結合する(氏名は空欄になる)
+    private static final String EXPORT_QUERY = "SELECT r FROM Report r LEFT JOIN FETCH r.employee"
+            + " WHERE (:employeeCode IS NULL OR r.employeeCode = :employeeCode)"
+            + " AND (:fromDate IS NULL OR r.reportDate >= :fromDate) AND (:toDate IS NULL OR r.reportDate <= :toDate)"
+            + " ORDER BY r.reportDate DESC, r.id DESC";
+
+    // Excelで保持したまま書き出す行数(それ以前の行は一時ファイルに書き出す)
+    private static final int XLSX_WINDOW = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // 1回の受信で取得する件数(MySQLは Integer.MIN_VALUE で1行ずつ受信する)
+    @Value("${report.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    // 条件に合う日報を書き出す 条件がnullの場合は絞り込まない
+    @Transactional(readOnly = true)
+    public long export(Format format, String employeeCode, LocalDate fromDate, LocalDate toDate, OutputStream output)
+            throws IOException {
+        long start = System.nanoTime();
+        long count;
+        try (Stream<Report> reports = stream(employeeCode, fromDate, toDate)) {
+            count = format == Format.CSV ? writeCsv(reports, output) : writeXlsx(reports, output);
+        }
+        log.info("日報を出力しました。形式: {} 件数: {} 処理時間: {}ms", format, count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    // 前方向にだけ読み込むストリーム 2次キャッシュには載せない(出力のために全件がキャッシュに入らないようにする)
+    private Stream<Report> stream(String employeeCode, LocalDate fromDate, LocalDate toDate) {
+        TypedQuery<Report> query = entityManager.createQuery(EXPORT_QUERY, Report.class)
+                .setParameter("employeeCode", employeeCode)
+                .setParameter("fromDate", fromDate)
+                .setParameter("toDate", toDate)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE);
+        return query.getResultStream();
+    }
+
+    private long writeCsv(Stream<Report> reports, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        // Excelで開いた時に文字化けしないようにBOMを付ける
+        writer.write('\uFEFF');
+        CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(HEADER).build());
+        long[] count = { 0 };
+        reports.forEach(report -> {
+            try {
+                printer.printRecord(report.getReportDate(), report.getEmployeeCode(), employeeName(report),
+                        report.getTitle(), report.getContent());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written(report);
+            count[0]++;
+        });
+        printer.flush();
+        return count[0];
+    }
+
+    // 社員が削除されている場合は null
+    private static String employeeName(Report report) {
+        return report.getEmployee() != null ? report.getEmployee().getName() : null;
+    }
+
+    private long writeXlsx(Stream<Report> reports, OutputStream output) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+            // 1シートの行数の上限を超えた場合は、次のシートに書き出す
+            Sheet[] sheet = { null };
+            int[] rowIndex = { maxRows };
+            long[] count = { 0 };
+            reports.forEach(report -> {
+                if (rowIndex[0] == maxRows) {
+                    sheet[0] = workbook.createSheet("日報" + (workbook.getNumberOfSheets() + 1));
+                    writeHeader(sheet[0]);
+                    rowIndex[0] = 1;
+                }
+                Row row = sheet[0].createRow(rowIndex[0]++);
+                row.createCell(0).setCellValue(report.getReportDate());
+                row.getCell(0).setCellStyle(dateStyle);
+                row.createCell(1).setCellValue(report.getEmployeeCode());
+                row.createCell(2).setCellValue(employeeName(report));
+                row.createCell(3).setCellValue(report.getTitle());
+                row.createCell(4).setCellValue(report.getContent());
+                written(report);
+                count[0]++;
+            });
+            if (sheet[0] == null) {
+                writeHeader(workbook.createSheet("日報1"));
+            }
+            workbook.write(output);
+            return count[0];
+        } finally {
+            // 一時ファイルを削除する
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // 書き出した日報は永続化コンテキストから外し、件数が多くてもメモリ使用量が増えないようにする
+    private void written(Report report) {
+        entityManager.detach(report);
+    }
+
+    private static void writeHeader(Sheet sheet) {
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADER.length; i++) {
+            header.createCell(i).setCellValue(HEADER[i]);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.techacademy.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+// 日報の一括登録の結果(件数、処理時間、行ごとのエラー)
+@Getter
+public class ReportImportResult {
+
+    // 画面に表示するエラーの上限(件数は errorCount で数える)
+    public static final int MAX_ERRORS = 1000;
+
+    // 読み込んだ件数
+    private int total;
+    // 登録した件数
+    private int imported;
+    // エラーの件数
+    private int errorCount;
+    // 処理時間(ミリ秒)
+    private long elapsedMillis;
+    // 行ごとのエラー(先頭 MAX_ERRORS 件)
+    private final List<RowError> errors = new ArrayList<RowError>();
+
+    @Getter
+    public static class RowError {
+        // 行番号(CSVはヘッダーを1行目、JSONは配列の1件目を1とする)
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    void addRow() {
+        total++;
+    }
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addError(long line, String message) {
+        errorCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // 1秒あたりの登録件数
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? imported * 1000L : imported * 1000L / elapsedMillis;
+    }
+}
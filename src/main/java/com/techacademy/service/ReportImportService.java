@@ -0,0 +1,366 @@
+package com.techacademy.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.constants.ErrorMessage;
+import com.techacademy.entity.Report;
+import com.techacademy.repository.EmployeeRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+//************************************************************************************************************************************************************
+//【日報の一括登録】
+// CSV・JSONを1件ずつ読み込みながらチェックし、batch-size件ごとにまとめて登録する
+// 日報のIDは IDENTITY のためHibernateではまとめて登録できない そのためJDBCのバッチ更新で登録する
+// (MySQLの接続URLに rewriteBatchedStatements=true を指定すると、1つのINSERT文にまとめて送信される)
+
+@Slf4j
+@Service
+public class ReportImportService {
+
+    public static enum Format {
+        CSV, JSON;
+
+        // ファイル名の拡張子から形式を判定する(対象外の場合はnull)
+        public static Format of(String filename) {
+            if (filename == null) {
+                return null;
+            }
+            String name = filename.toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".json")) {
+                return JSON;
+            }
+            return null;
+        }
+    }
+
+    // CSVのヘッダー(1行目)
+    public static final String[] CSV_HEADER = { "employee_code", "report_date", "title", "content" };
+
+    private static final String INSERT_SQL = "INSERT INTO reports(report_date, title, content, employee_code, delete_flg,"
+            + " created_at, updated_at) VALUES (?, ?, ?, ?, 0, ?, ?)";
+
+    // 既に登録されている(社員番号, 日付)をまとめて取得する 社員番号・日付それぞれのINで絞り込み、組み合わせはJava側で判定する
+    private static final String EXISTING_SQL = "SELECT employee_code, report_date FROM reports"
+            + " WHERE delete_flg = 0 AND employee_code IN (:codes) AND report_date IN (:dates)";
+
+    // エラーメッセージに表示する項目名
+    private static final Map<String, String> FIELD_NAMES = Map.of("reportDate", "日付", "title", "タイトル", "content",
+            "内容");
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ReportStatsService reportStatsService;
+
+    @Autowired
+    private ReportListVersion reportListVersion;
+
+    // 1回のバッチ更新で登録する件数
+    @Value("${report.import.batch-size:1000}")
+    private int batchSize;
+
+    public ReportImportResult importReports(InputStream input, Format format) throws IOException {
+        long start = System.nanoTime();
+        ReportImportResult result = new ReportImportResult();
+        Importer importer = new Importer(result, new HashSet<String>(employeeRepository.findAllCodes()));
+
+        try {
+            if (format == Format.CSV) {
+                readCsv(input, importer);
+            } else {
+                readJson(input, importer);
+            }
+            importer.flush();
+        } finally {
+            // JDBCで直接登録したため、日報一覧のクエリキャッシュを破棄する(途中で失敗した場合も、登録済みの分は反映する)
+            if (result.getImported() > 0) {
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+                reportListVersion.changed();
+            }
+        }
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("日報の一括登録が完了しました。件数: {} 登録: {} エラー: {} 処理時間: {}ms ({}件/秒)", result.getTotal(),
+                result.getImported(), result.getErrorCount(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    // CSVを1行ずつ読み込む(項目内のカンマ・改行はダブルクォートで囲む)
+    private void readCsv(InputStream input, Importer importer) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build();
+        try (CSVParser parser = format.parse(skipBom(new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            for (String column : CSV_HEADER) {
+                if (!parser.getHeaderMap().containsKey(column)) {
+                    importer.result.addError(1, "1行目に項目名(" + String.join(",", CSV_HEADER) + ")を指定してください");
+                    return;
+                }
+            }
+            for (CSVRecord record : parser) {
+                // 行番号はヘッダーを1行目として数える
+                importer.add(record.getRecordNumber() + 1, value(record, "employee_code"), value(record, "report_date"),
+                        value(record, "title"), value(record, "content"));
+            }
+        }
+    }
+
+    // JSONの配列を1件ずつ読み込む([{"employeeCode": "1", "reportDate": "2024-04-01", "title": "...", "content": "..."}, ...])
+    private void readJson(InputStream input, Importer importer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            // 読み込み中の日報が配列の何件目か
+            long line = 1;
+            try {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    importer.result.addError(1, "日報の配列を指定してください");
+                    return;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode node = objectMapper.readTree(parser);
+                    importer.add(line, text(node, "employeeCode"), text(node, "reportDate"), text(node, "title"),
+                            text(node, "content"));
+                    line++;
+                }
+            } catch (JsonProcessingException e) {
+                // 形式が正しくない場合は、それまでに読み込んだ日報だけを登録する
+                importer.result.addError(line, "JSONの形式が正しくありません");
+            }
+        }
+    }
+
+    private static String value(CSVRecord record, String column) {
+        return record.isSet(column) ? record.get(column) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.path(field).asText(null);
+    }
+
+    // Excelで保存したCSVの先頭にあるBOMを読み飛ばす(従業員の一括登録でも使う)
+    static Reader skipBom(Reader reader) throws IOException {
+        PushbackReader pushback = new PushbackReader(reader, 1);
+        int first = pushback.read();
+        if (first != -1 && first != '\uFEFF') {
+            pushback.unread(first);
+        }
+        return pushback;
+    }
+
+    // 読み込んだ日報をチェックし、batchSize件ごとに登録する
+    private class Importer {
+
+        private final ReportImportResult result;
+        private final Set<String> employeeCodes;
+        // ファイル内の(社員番号, 日付)の重複チェック用
+        private final Set<String> keys = new HashSet<String>();
+        private final List<Long> pendingLines = new ArrayList<Long>();
+        private final List<Report> pending = new ArrayList<Report>();
+
+        Importer(ReportImportResult result, Set<String> employeeCodes) {
+            this.result = result;
+            this.employeeCodes = employeeCodes;
+        }
+
+        void add(long line, String employeeCode, String reportDate, String title, String content) {
+            result.addRow();
+
+            if (employeeCode == null || !employeeCodes.contains(employeeCode)) {
+                result.addError(line, "存在しない社員番号です");
+                return;
+            }
+            Report report = new Report();
+            report.setEmployeeCode(employeeCode);
+            report.setTitle(title);
+            report.setContent(content);
+            if (reportDate != null && !reportDate.isEmpty()) {
+                try {
+                    report.setReportDate(LocalDate.parse(reportDate));
+                } catch (DateTimeParseException e) {
+                    result.addError(line, "日付はyyyy-MM-ddの形式で入力してください");
+                    return;
+                }
+            }
+
+            // 画面から登録する場合と同じチェック(Reportの入力チェック)
+            Set<ConstraintViolation<Report>> violations = validator.validate(report);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<Report> violation = violations.iterator().next();
+                String field = violation.getPropertyPath().toString();
+                result.addError(line, FIELD_NAMES.getOrDefault(field, field) + ": " + violation.getMessage());
+                return;
+            }
+            if (!keys.add(key(employeeCode, report.getReportDate()))) {
+                result.addError(line, "ファイル内で同じ社員番号・日付の日報が重複しています");
+                return;
+            }
+
+            pending.add(report);
+            pendingLines.add(line);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        // 登録済みの日付を除いてまとめて登録する
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Set<String> existing = findExisting();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Report> rows = new ArrayList<Report>(pending.size());
+            List<Long> lines = new ArrayList<Long>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                Report report = pending.get(i);
+                if (existing.contains(key(report.getEmployeeCode(), report.getReportDate()))) {
+                    result.addError(pendingLines.get(i), ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR));
+                    continue;
+                }
+                rows.add(report);
+                lines.add(pendingLines.get(i));
+            }
+            if (!rows.isEmpty()) {
+                try {
+                    insert(rows, now);
+                } catch (DataIntegrityViolationException e) {
+                    // 確認した後に同じ日付の日報が登録された場合(uk_reports_employee_date)は、バッチ全体がロールバックされるため、
+                    // 1件ずつ登録し直し、重複した行だけをエラーにする
+                    log.info("日報の一括登録で日付の重複が発生したため、1件ずつ登録します。件数: {}", rows.size());
+                    rows = insertEach(rows, lines, now);
+                }
+            }
+            if (!rows.isEmpty()) {
+                reportSearchService.indexAll(rows);
+                reportStatsService.refreshAll(rows);
+                result.addImported(rows.size());
+            }
+            pending.clear();
+            pendingLines.clear();
+        }
+
+        // まとめて登録し、採番されたIDを設定する(検索インデックスへの登録に使う)
+        private void insert(List<Report> rows, Timestamp now) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.getJdbcTemplate().batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement statement, int i) throws SQLException {
+                            Report report = rows.get(i);
+                            statement.setDate(1, Date.valueOf(report.getReportDate()));
+                            statement.setString(2, report.getTitle());
+                            statement.setString(3, report.getContent());
+                            statement.setString(4, report.getEmployeeCode());
+                            statement.setTimestamp(5, now);
+                            statement.setTimestamp(6, now);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return rows.size();
+                        }
+                    }, keyHolder));
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < rows.size(); i++) {
+                rows.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            }
+        }
+
+        // 1件ずつ登録し、登録できた日報を返す 重複した行は登録済みの日付のエラーにする
+        private List<Report> insertEach(List<Report> rows, List<Long> lines, Timestamp now) {
+            List<Report> inserted = new ArrayList<Report>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Report report = rows.get(i);
+                try {
+                    insert(List.of(report), now);
+                    inserted.add(report);
+                } catch (DataIntegrityViolationException e) {
+                    result.addError(lines.get(i), ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR));
+                }
+            }
+            return inserted;
+        }
+
+        private Set<String> findExisting() {
+            Set<String> codes = new HashSet<String>();
+            Set<LocalDate> dates = new HashSet<LocalDate>();
+            for (Report report : pending) {
+                codes.add(report.getEmployeeCode());
+                dates.add(report.getReportDate());
+            }
+            MapSqlParameterSource parameters = new MapSqlParameterSource().addValue("codes", codes).addValue("dates", dates);
+            Set<String> existing = new HashSet<String>();
+            jdbcTemplate.query(EXISTING_SQL, parameters, resultSet -> {
+                existing.add(key(resultSet.getString("employee_code"), resultSet.getDate("report_date").toLocalDate()));
+            });
+            return existing;
+        }
+
+        private String key(String employeeCode, LocalDate reportDate) {
+            return employeeCode + "/" + reportDate;
+        }
+    }
+}
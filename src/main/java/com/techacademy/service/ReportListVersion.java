@@ -0,0 +1,39 @@
+package com.techacademy.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 日報一覧の版 一覧に表示する日報・従業員が変わるたびに進め、一覧画面の条件付きGET(ETag・Last-Modified)に使う
+// このアプリケーションから行った変更のみ反映する 起動時の時刻から始めるため、再起動すると必ず変わる
+@Component
+public class ReportListVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    // 現在の版(最後に一覧が変わった時刻 ミリ秒)
+    public long get() {
+        return version.get();
+    }
+
+    // 一覧の内容が変わったときに呼ぶ
+    // トランザクション中はコミット後に進める(コミット前に進めると、変更前の一覧が新しい版で返される場合があるため)
+    public void changed() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advance();
+                }
+            });
+        } else {
+            advance();
+        }
+    }
+
+    private void advance() {
+        version.accumulateAndGet(System.currentTimeMillis(), (previous, now) -> Math.max(previous + 1, now));
+    }
+}
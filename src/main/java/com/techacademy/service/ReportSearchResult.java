@@ -0,0 +1,44 @@
+package com.techacademy.service;
+
+import java.util.List;
+
+import com.techacademy.dto.ReportListItem;
+
+import lombok.Getter;
+
+// 日報の全文検索の結果(1ページ分)
+@Getter
+public class ReportSearchResult {
+
+    // 検索結果の日報
+    private final List<Hit> hits;
+    // 一致した件数(totalExact が false の場合は下限値)
+    private final long total;
+    private final boolean totalExact;
+    // ページ番号(0から)
+    private final int page;
+    // 次のページがあるかどうか
+    private final boolean hasNext;
+
+    public ReportSearchResult(List<Hit> hits, long total, boolean totalExact, int page, boolean hasNext) {
+        this.hits = hits;
+        this.total = total;
+        this.totalExact = totalExact;
+        this.page = page;
+        this.hasNext = hasNext;
+    }
+
+    // 日報と、キーワードを <mark> で囲んだ抜粋(HTMLエスケープ済み)
+    @Getter
+    public static class Hit {
+        private final ReportListItem report;
+        private final String titleHighlight;
+        private final String contentHighlight;
+
+        public Hit(ReportListItem report, String titleHighlight, String contentHighlight) {
+            this.report = report;
+            this.titleHighlight = titleHighlight;
+            this.contentHighlight = contentHighlight;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.techacademy.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ja.JapaneseAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.dto.ReportListItem;
+import com.techacademy.entity.Report;
+import com.techacademy.repository.ReportRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+//************************************************************************************************************************************************************
+//【日報の全文検索】
+// タイトル・内容をLuceneのインデックス(日本語は形態素解析 Kuromoji)で検索する
+// 日報の登録・更新・削除のたびにインデックスを更新し、ずれた場合は再構築(rebuild)で作り直す
+// report.search.index-dir を指定しない場合はメモリ上にインデックスを作り、起動時に再構築する
+
+@Slf4j
+@Service
+public class ReportSearchService {
+
+    // インデックスの項目名
+    static final String ID = "id";
+    static final String EMPLOYEE_CODE = "employeeCode";
+    static final String TITLE = "title";
+    static final String CONTENT = "content";
+
+    private static final String REBUILD_QUERY = "SELECT r FROM Report r";
+
+    // 検索対象の項目と重み(タイトルに一致した日報を上位にする)
+    private static final Map<String, Float> SEARCH_FIELDS = Map.of(TITLE, 2.0f, CONTENT, 1.0f);
+
+    private static final String[] HIGHLIGHT_FIELDS = { TITLE, CONTENT };
+    // 項目ごとに表示する抜粋の数
+    private static final int[] HIGHLIGHT_PASSAGES = { 1, 2 };
+
+    // ハイライト表示用に位置情報(オフセット)も保存する 表示時に本文を解析し直さずに済む
+    private static final FieldType HIGHLIGHT_TEXT_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        HIGHLIGHT_TEXT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        HIGHLIGHT_TEXT_TYPE.freeze();
+    }
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // インデックスの保存先(空の場合はメモリ上)
+    @Value("${report.search.index-dir:}")
+    private String indexDir;
+
+    // 起動時にインデックスが空なら再構築する
+    @Value("${report.search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    // 再構築時に1回の受信で取得する件数(日報の出力と同じ設定を使う)
+    @Value("${report.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    private final Analyzer analyzer = new JapaneseAnalyzer();
+    private Directory directory;
+    // 再構築に失敗した場合は開き直す(開き直す間は indexLock の書き込みロックで更新・検索を待たせる)
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    // 再構築中は検索結果に反映しない(作りかけのインデックスを検索させない)
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // 再構築中に登録・更新・削除された日報 再構築の読み込みより新しい内容の場合があるため、再構築後にDBから読み直す
+    private final Set<Integer> changedWhileRebuilding = ConcurrentHashMap.newKeySet();
+    // インデックスのコミットと再構築の開始・終了を排他する(再構築中の空・作りかけのインデックスを保存させない)
+    private final Object commitLock = new Object();
+    private final ExecutorService rebuildExecutor = Executors
+            .newSingleThreadExecutor(runnable -> new Thread(runnable, "report-search-rebuild"));
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        openWriter();
+    }
+
+    private void openWriter() throws IOException {
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        rebuildExecutor.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildIfEmpty() {
+        if (rebuildOnStartup && writer.getDocStats().numDocs == 0) {
+            rebuild();
+        }
+    }
+
+  //************************************************************************************************************************************************************
+  //【インデックスの更新】
+  // トランザクション中に呼ばれた場合はコミット後に更新する(ロールバックされた日報を検索させない)
+  // インデックスの更新に失敗しても日報の登録は取り消さない(ログを出力し、再構築で作り直す)
+
+    public void index(Report report) {
+        indexAll(List.of(report));
+    }
+
+    public void indexAll(Collection<Report> reports) {
+        List<Document> documents = new ArrayList<Document>(reports.size());
+        List<Integer> ids = new ArrayList<Integer>(reports.size());
+        for (Report report : reports) {
+            documents.add(document(report));
+            ids.add(report.getId());
+        }
+        afterCommit(ids, () -> {
+            for (Document document : documents) {
+                writer.updateDocument(new Term(ID, document.get(ID)), document);
+            }
+        });
+    }
+
+    public void delete(Integer id) {
+        afterCommit(List.of(id), () -> writer.deleteDocuments(new Term(ID, id.toString())));
+    }
+
+    private void afterCommit(Collection<Integer> ids, IndexTask task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(ids, task);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(ids, task);
+            }
+        });
+    }
+
+    private void update(Collection<Integer> ids, IndexTask task) {
+        indexLock.readLock().lock();
+        try {
+            task.run();
+            synchronized (commitLock) {
+                if (rebuilding.get()) {
+                    // 再構築中はコミットせず、再構築の後で読み直す(再構築に失敗して取り消された場合も読み直す)
+                    changedWhileRebuilding.addAll(ids);
+                    return;
+                }
+                writer.commit();
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("検索インデックスの更新に失敗しました", e);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private static Document document(Report report) {
+        Document document = new Document();
+        document.add(new StringField(ID, report.getId().toString(), Field.Store.YES));
+        document.add(new StringField(EMPLOYEE_CODE, report.getEmployeeCode(), Field.Store.NO));
+        document.add(new Field(TITLE, report.getTitle(), HIGHLIGHT_TEXT_TYPE));
+        document.add(new Field(CONTENT, report.getContent(), HIGHLIGHT_TEXT_TYPE));
+        return document;
+    }
+
+    @FunctionalInterface
+    private interface IndexTask {
+        void run() throws IOException;
+    }
+
+  //************************************************************************************************************************************************************
+  //【インデックスの再構築】
+  // DBの日報を1件ずつ読み込みながらインデックスを作り直す(全件をメモリに載せない)
+
+    // 再構築した件数を返す(既に再構築中の場合は -1)
+    public long rebuild() {
+        synchronized (commitLock) {
+            if (!rebuilding.compareAndSet(false, true)) {
+                log.info("検索インデックスは再構築中です");
+                return -1;
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            writer.deleteAll();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            long count = transactionTemplate.execute(status -> {
+                long[] added = { 0 };
+                try (Stream<Report> reports = entityManager.createQuery(REBUILD_QUERY, Report.class)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                        .getResultStream()) {
+                    reports.forEach(report -> {
+                        try {
+                            // 再構築中に更新された日報が先に登録されている場合があるため、IDで置き換える
+                            writer.updateDocument(new Term(ID, report.getId().toString()), document(report));
+                        } catch (IOException e) {
+                            throw new IllegalStateException("検索インデックスの再構築に失敗しました", e);
+                        }
+                        entityManager.detach(report);
+                        added[0]++;
+                    });
+                }
+                return added[0];
+            });
+            synchronized (commitLock) {
+                writer.commit();
+                rebuilding.set(false);
+            }
+            searcherManager.maybeRefreshBlocking();
+            log.info("検索インデックスを再構築しました。件数: {} 処理時間: {}ms", count, (System.nanoTime() - start) / 1_000_000);
+            return count;
+        } catch (IOException | RuntimeException e) {
+            log.error("検索インデックスの再構築に失敗しました", e);
+            discardRebuild();
+            return -1;
+        } finally {
+            rebuilding.set(false);
+            reindexChangedWhileRebuilding();
+        }
+    }
+
+    // 再構築に失敗した場合は、全件の削除と途中まで登録した内容を取り消し、最後にコミットしたインデックスに戻す
+    // (取り消さないと、次の更新のコミットで空や途中までのインデックスが検索される)
+    private void discardRebuild() {
+        indexLock.writeLock().lock();
+        try {
+            searcherManager.close();
+            writer.rollback();
+            openWriter();
+        } catch (IOException e) {
+            log.error("再構築に失敗した検索インデックスを元に戻せませんでした", e);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    // 再構築中に登録・更新・削除された日報をDBから読み直して反映する(削除された日報はインデックスからも削除する)
+    private void reindexChangedWhileRebuilding() {
+        if (changedWhileRebuilding.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<Integer>(changedWhileRebuilding);
+        changedWhileRebuilding.removeAll(ids);
+        try {
+            // 更新直後の内容を読むため、読み取り専用(レプリカ)にしない
+            List<Report> reports = new TransactionTemplate(transactionManager)
+                    .execute(status -> reportRepository.findAllById(ids));
+            Set<Integer> found = new HashSet<Integer>();
+            reports.forEach(report -> found.add(report.getId()));
+            update(ids, () -> {
+                for (Report report : reports) {
+                    writer.updateDocument(new Term(ID, report.getId().toString()), document(report));
+                }
+                for (Integer id : ids) {
+                    if (!found.contains(id)) {
+                        writer.deleteDocuments(new Term(ID, id.toString()));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("再構築中に更新された日報を検索インデックスに反映できませんでした", e);
+        }
+    }
+
+    // 画面から再構築する場合は別スレッドで実行する
+    public void rebuildAsync() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    // 定期的に再構築する(report.search.rebuild-cron が "-" の場合は実行しない)
+    @Scheduled(cron = "${report.search.rebuild-cron:-}")
+    void scheduledRebuild() {
+        rebuild();
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+  //************************************************************************************************************************************************************
+  //【検索】
+
+    // キーワードに一致する日報を1ページ分取得する(page は0から)
+    // employeeCode を指定した場合はその社員の日報のみ、nullの場合は全社員の日報が対象
+    // スペース区切りのキーワードはすべて含む日報を検索する("..." でフレーズ、-で除外、| でOR)
+    public ReportSearchResult search(String keywords, String employeeCode, int page, int pageSize) throws IOException {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, SEARCH_FIELDS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(parser.parse(keywords), BooleanClause.Occur.MUST);
+        if (employeeCode != null) {
+            builder.add(new TermQuery(new Term(EMPLOYEE_CODE, employeeCode)), BooleanClause.Occur.FILTER);
+        }
+        Query query = builder.build();
+
+        SearcherManager manager;
+        IndexSearcher searcher;
+        indexLock.readLock().lock();
+        try {
+            manager = searcherManager;
+            searcher = manager.acquire();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        try {
+            // 次ページの有無を判定するため1件多く取得する
+            int from = page * pageSize;
+            TopDocs topDocs = searcher.search(query, from + pageSize + 1);
+            int to = Math.min(topDocs.scoreDocs.length, from + pageSize);
+            ScoreDoc[] hits = new ScoreDoc[Math.max(to - from, 0)];
+            System.arraycopy(topDocs.scoreDocs, Math.min(from, to), hits, 0, hits.length);
+
+            UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "… ", true))
+                    .build();
+            Map<String, String[]> highlights = highlighter.highlightFields(HIGHLIGHT_FIELDS, query,
+                    new TopDocs(topDocs.totalHits, hits), HIGHLIGHT_PASSAGES);
+
+            List<Integer> ids = new ArrayList<Integer>(hits.length);
+            StoredFields storedFields = searcher.storedFields();
+            for (ScoreDoc hit : hits) {
+                ids.add(Integer.valueOf(storedFields.document(hit.doc).get(ID)));
+            }
+
+            // 表示する項目はDBから取得する(氏名などインデックスにない項目も表示するため)
+            Map<Integer, ReportListItem> reports = new HashMap<Integer, ReportListItem>();
+            for (ReportListItem report : reportRepository.findListItemsByIdIn(ids)) {
+                reports.put(report.id(), report);
+            }
+            List<ReportSearchResult.Hit> results = new ArrayList<ReportSearchResult.Hit>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                ReportListItem report = reports.get(ids.get(i));
+                // インデックスの更新前に削除された日報は表示しない
+                if (report != null) {
+                    results.add(new ReportSearchResult.Hit(report, highlights.get(TITLE)[i], highlights.get(CONTENT)[i]));
+                }
+            }
+            return new ReportSearchResult(results, topDocs.totalHits.value,
+                    topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO, page, topDocs.scoreDocs.length > to);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+}
@@ -1,23 +1,31 @@
 package com.techacademy.service;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.techacademy.dto.ReportDetail;
+import com.techacademy.dto.ReportListItem;
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Report;
 import com.techacademy.repository.ReportRepository;
 
-import jakarta.transaction.Transactional;
-
-import com.techacademy.repository.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
 
 //************************************************************************************************************************************************************
 //【基本的なメソッド】
 
+@Slf4j
 @Service
 public class ReportService {
 
@@ -25,58 +33,137 @@ public class ReportService {
     private ReportRepository reportRepository;
 
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ReportStatsService reportStatsService;
+
+    @Autowired
+    private ReportListVersion reportListVersion;
+
+    // 管理者の一覧画面で全件数の概算モードを使うかどうかと、キャッシュした件数の有効期間
+    @Value("${report.list.approximate-count.enabled:false}")
+    private boolean approximateCountEnabled;
 
-    public boolean isAdmin(String username) {
-        Employee employee = employeeRepository.findByCode(username);
-        return employee != null && employee.getRole() == Employee.Role.ADMIN;
+    @Value("${report.list.approximate-count.ttl:60s}")
+    private Duration approximateCountTtl;
+
+    // 仮想スレッドでDBアクセス中に synchronized で待たせるとキャリアスレッドを占有するため、ロックを使う
+    private final ReentrantLock cachedReportCountLock = new ReentrantLock();
+    private long cachedReportCount;
+    private long cachedReportCountAt;
+
+    // ログインユーザーが管理者かどうか 認証時に設定された権限で判定する(DBは参照しない)
+    // 権限が変更された場合は EmployeeService.update でセッションを失効させて再ログインさせる
+    public boolean isAdmin(UserDetail userDetail) {
+        String admin = Employee.Role.ADMIN.toString();
+        return userDetail.getAuthorities().stream().anyMatch(authority -> admin.equals(authority.getAuthority()));
     }
 
   //************************************************************************************************************************************************************
   //【一覧表示画面に関するメソッド】
 
+    @Transactional(readOnly = true)
     public List<Report> getAllReports() {
         return reportRepository.findAllByOrderByReportDateDesc();
     }
 
+    @Transactional(readOnly = true)
     public List<Report> getReportsByUsername(String username) {
         return reportRepository.findByEmployeeCodeOrderByReportDateDesc(username);
     }
 
-    public int getReportListSize() {
-        return reportRepository.findAll().size();
+    // 一覧画面用の日報を1ページ分取得 管理者なら全件、一般ユーザーなら自分の日報のみが対象
+    // cursorDate・cursorIdには前ページ最後の日報の日付とIDを指定する(1ページ目はnull)
+    @Transactional(readOnly = true)
+    public Slice<ReportListItem> getReportPage(String username, boolean admin, LocalDate cursorDate, Integer cursorId, int pageSize) {
+        Pageable pageable = PageRequest.ofSize(pageSize);
+        boolean firstPage = cursorDate == null || cursorId == null;
+
+        if (admin) {
+            return firstPage ? reportRepository.findByOrderByReportDateDescIdDesc(pageable)
+                    : reportRepository.findNextPage(cursorDate, cursorId, pageable);
+        }
+        return firstPage ? reportRepository.findByEmployeeCodeOrderByReportDateDescIdDesc(username, pageable)
+                : reportRepository.findNextPageByEmployeeCode(username, cursorDate, cursorId, pageable);
+    }
+
+    // 一覧画面用の日報の全件数を取得
+    // 概算モードが有効な場合、管理者の全件数は一定時間キャッシュした値を返す(件数が多いとCOUNTも重くなるため)
+    @Transactional(readOnly = true)
+    public long getReportCount(String username, boolean admin) {
+        if (admin) {
+            return approximateCountEnabled ? getCachedReportCount() : reportRepository.countByDeleteFlgFalse();
+        }
+        return reportRepository.countByEmployeeCodeAndDeleteFlgFalse(username);
+    }
+
+    // 一覧画面の全件数が概算(キャッシュした値)かどうか
+    public boolean isApproximateCount(boolean admin) {
+        return admin && approximateCountEnabled;
+    }
+
+    private long getCachedReportCount() {
+        cachedReportCountLock.lock();
+        try {
+            long now = System.nanoTime();
+            if (cachedReportCountAt == 0 || now - cachedReportCountAt >= approximateCountTtl.toNanos()) {
+                cachedReportCount = reportRepository.countByDeleteFlgFalse();
+                cachedReportCountAt = now;
+            }
+            return cachedReportCount;
+        } finally {
+            cachedReportCountLock.unlock();
+        }
     }
 
   //************************************************************************************************************************************************************
   //【新規登録画面に関するメソッド】
 
     public void saveReport(Report report) {
-        System.out.println("デバッグ: 日報をデータベースに保存します");
         reportRepository.save(report);
+        reportSearchService.index(report);
+        reportStatsService.refresh(report.getEmployeeCode(), report.getReportDate());
+        reportListVersion.changed();
+        log.debug("日報をデータベースに保存しました。ID: {}", report.getId());
     }
 
+    // 同じ社員の同じ日付の日報があるかどうか
+    // 同時に登録された場合はDBの一意制約(uk_reports_employee_date)で DataIntegrityViolationException になる
     public boolean isReportDateDuplicate(String employeeCode, LocalDate reportDate) {
-        List<Report> reports = reportRepository.findByEmployeeCodeAndReportDate(employeeCode, reportDate);
-        return !reports.isEmpty();
+        return reportRepository.existsByEmployeeCodeAndReportDate(employeeCode, reportDate);
+    }
+
+    // 更新時 更新する日報自身を除いて、同じ社員の同じ日付の日報があるかどうか
+    public boolean isReportDateDuplicate(String employeeCode, LocalDate reportDate, Integer id) {
+        return reportRepository.existsByEmployeeCodeAndReportDateAndIdNot(employeeCode, reportDate, id);
     }
 
 //************************************************************************************************************************************************************
 //【詳細画面に関するメソッド】
 
+    @Transactional(readOnly = true)
     public Report getReportById(Integer id) {
         return reportRepository.findById(id).orElse(null);
     }
 
+    // 詳細画面の表示項目のみを取得する(見つからない場合はnull)
+    @Transactional(readOnly = true)
+    public ReportDetail getReportDetail(Integer id) {
+        return reportRepository.findDetailById(id).orElse(null);
+    }
+
     @Transactional
     public void deleteReportById(Integer id) {
-        Optional<Report> report = reportRepository.findById(id);
-        if (report.isPresent()) {
-            Report r = report.get();
-            r.setDeleteFlg(true);  // 論理削除フラグを立てる
-            reportRepository.save(r);
-        } else {
+        // 提出状況の集計用に、削除する日報の社員番号・日付を取得する
+        Report report = reportRepository.findById(id).orElseThrow(() -> new RuntimeException("レポートが見つかりませんでした"));
+        // 論理削除フラグを立てる 一括更新で行い、2次キャッシュに削除前の日報が残らないようにする
+        if (reportRepository.softDelete(id, LocalDateTime.now()) == 0) {
             throw new RuntimeException("レポートが見つかりませんでした");
         }
+        reportSearchService.delete(id);
+        reportStatsService.refresh(report.getEmployeeCode(), report.getReportDate());
+        reportListVersion.changed();
     }
 
 //************************************************************************************************************************************************************
@@ -89,7 +176,12 @@ public class ReportService {
 
     // 追加する update メソッド
     public void update(Report report) {
+        // 日付を変更した場合は、変更前の月も集計し直す
+        LocalDate previousDate = reportRepository.findReportDateById(report.getId()).orElse(null);
         reportRepository.save(report);
+        reportSearchService.index(report);
+        reportStatsService.refresh(report.getEmployeeCode(), previousDate, report.getReportDate());
+        reportListVersion.changed();
     }
 
   //************************************************************************************************************************************************************
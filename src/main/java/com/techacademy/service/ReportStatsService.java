@@ -0,0 +1,337 @@
+package com.techacademy.service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.entity.Employee;
+import com.techacademy.entity.Report;
+
+import lombok.extern.slf4j.Slf4j;
+
+//************************************************************************************************************************************************************
+//【日報の提出状況の集計】
+// 社員ごとに日報を提出した日をメモリ上のビット列(1970-01-01からの日数をビット位置とする)で保持し、
+// 集計テーブル(report_monthly_stats)に社員・月ごとのビットと日数を保存する
+// 日報の登録・更新・削除のたびに、該当する社員・月だけを日報テーブルから集計し直す(同じ日の日報は1件までのため日数＝件数)
+// 起動時は集計テーブルから読み込み、ずれた場合は再構築(rebuild)で日報テーブル全体から作り直す
+
+@Slf4j
+@Service
+public class ReportStatsService {
+
+    // 社員の指定期間に提出した日付
+    private static final String REPORT_DATES_SQL = "SELECT report_date FROM reports"
+            + " WHERE delete_flg = 0 AND employee_code = ? AND report_date BETWEEN ? AND ?";
+
+    private static final String ALL_REPORT_DATES_SQL = "SELECT employee_code, report_date FROM reports WHERE delete_flg = 0";
+
+    private static final String LOAD_SQL = "SELECT employee_code, target_month, day_bits FROM report_monthly_stats";
+
+    private static final String UPDATE_SQL = "UPDATE report_monthly_stats SET report_count = ?, day_bits = ?, updated_at = ?"
+            + " WHERE employee_code = ? AND target_month = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO report_monthly_stats(employee_code, target_month, report_count,"
+            + " day_bits, updated_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 再構築時に1回の受信で取得する件数(日報の出力と同じ設定を使う)
+    @Value("${report.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    // 社員番号ごとの提出した日
+    private Map<String, BitSet> submittedDays = new HashMap<String, BitSet>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 再構築中に集計し直した社員・月(再構築の完了後にもう一度集計し直す)
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> refreshedWhileRebuilding = ConcurrentHashMap.newKeySet();
+
+    // 起動時に集計テーブルから読み込む 集計テーブルが空の場合は日報テーブルから作成する
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        Map<String, BitSet> days = new HashMap<String, BitSet>();
+        jdbcTemplate.query(LOAD_SQL, resultSet -> {
+            YearMonth month = toYearMonth(resultSet.getInt("target_month"));
+            setMonth(days.computeIfAbsent(resultSet.getString("employee_code"), code -> new BitSet()), month,
+                    resultSet.getInt("day_bits"));
+        });
+        if (days.isEmpty()) {
+            rebuild();
+            return;
+        }
+        swap(days);
+        log.info("日報の集計を読み込みました。社員数: {}", days.size());
+    }
+
+  //************************************************************************************************************************************************************
+  //【集計の更新】
+  // トランザクション中に呼ばれた場合はコミット後に集計する(ロールバックされた日報を数えない)
+
+    // 社員の指定した日付を含む月を集計し直す(日付を変更した場合は変更前・変更後の両方を指定する)
+    public void refresh(String employeeCode, LocalDate... reportDates) {
+        TreeSet<YearMonth> months = new TreeSet<YearMonth>();
+        for (LocalDate reportDate : reportDates) {
+            if (reportDate != null) {
+                months.add(YearMonth.from(reportDate));
+            }
+        }
+        if (!months.isEmpty()) {
+            afterCommit(() -> recalculate(employeeCode, months));
+        }
+    }
+
+    // 一括登録した日報の社員・月を集計し直す
+    public void refreshAll(Collection<Report> reports) {
+        Map<String, TreeSet<YearMonth>> months = new HashMap<String, TreeSet<YearMonth>>();
+        for (Report report : reports) {
+            months.computeIfAbsent(report.getEmployeeCode(), code -> new TreeSet<YearMonth>())
+                    .add(YearMonth.from(report.getReportDate()));
+        }
+        afterCommit(() -> months.forEach(this::recalculate));
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    // 社員の指定した月を日報テーブルから集計し、集計テーブルとメモリ上のビット列に反映する
+    // 対象の月の最初から最後までを1回のSQLで取得する(日報一覧と同じ社員・日付のインデックスを使う)
+    private void recalculate(String employeeCode, TreeSet<YearMonth> months) {
+        // 1970年より前の月は集計しない(ビット列に入らないため)
+        months.removeIf(month -> !isIndexed(month.atDay(1)));
+        if (months.isEmpty()) {
+            return;
+        }
+        YearMonth first = months.first();
+        YearMonth last = months.last();
+        Map<YearMonth, Integer> dayBits = new HashMap<YearMonth, Integer>();
+        for (YearMonth month : months) {
+            dayBits.put(month, 0);
+        }
+        jdbcTemplate.query(REPORT_DATES_SQL, resultSet -> {
+            LocalDate reportDate = resultSet.getDate("report_date").toLocalDate();
+            dayBits.computeIfPresent(YearMonth.from(reportDate), (month, bits) -> bits | 1 << reportDate.getDayOfMonth() - 1);
+        }, employeeCode, Date.valueOf(first.atDay(1)), Date.valueOf(last.atEndOfMonth()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        dayBits.forEach((month, bits) -> save(employeeCode, month, bits, now));
+
+        lock.writeLock().lock();
+        try {
+            BitSet days = submittedDays.computeIfAbsent(employeeCode, code -> new BitSet());
+            dayBits.forEach((month, bits) -> setMonth(days, month, bits));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuilding.get()) {
+            months.forEach(month -> refreshedWhileRebuilding.add(employeeCode + "/" + month));
+        }
+    }
+
+    // 集計テーブルに保存する(行がない場合は追加する)
+    private void save(String employeeCode, YearMonth month, int bits, Timestamp now) {
+        int target = toTargetMonth(month);
+        if (jdbcTemplate.update(UPDATE_SQL, Integer.bitCount(bits), bits, now, employeeCode, target) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, employeeCode, target, Integer.bitCount(bits), bits, now);
+        } catch (DuplicateKeyException e) {
+            // 同時に追加された場合は更新する
+            jdbcTemplate.update(UPDATE_SQL, Integer.bitCount(bits), bits, now, employeeCode, target);
+        }
+    }
+
+  //************************************************************************************************************************************************************
+  //【集計の再構築】
+  // 日報テーブル全体を1件ずつ読み込みながら集計し、集計テーブルを作り直す
+
+    // 集計した日報の件数を返す(既に再構築中の場合は -1)
+    public long rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("日報の集計は再構築中です");
+            return -1;
+        }
+        long start = System.nanoTime();
+        try {
+            Map<String, BitSet> days = new HashMap<String, BitSet>();
+            long[] count = { 0 };
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(ALL_REPORT_DATES_SQL);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                setDay(days.computeIfAbsent(resultSet.getString("employee_code"), code -> new BitSet()),
+                        resultSet.getDate("report_date").toLocalDate());
+                count[0]++;
+            });
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<Object[]>();
+            days.forEach((employeeCode, bits) -> monthBits(bits).forEach((month, dayBits) -> rows
+                    .add(new Object[] { employeeCode, toTargetMonth(month), Integer.bitCount(dayBits), dayBits, now })));
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM report_monthly_stats");
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            });
+            swap(days);
+            log.info("日報の集計を再構築しました。件数: {} 処理時間: {}ms", count[0], (System.nanoTime() - start) / 1_000_000);
+            return count[0];
+        } finally {
+            rebuilding.set(false);
+            // 再構築中に更新された社員・月は、再構築の結果で上書きされている場合があるため集計し直す
+            for (String key : refreshedWhileRebuilding) {
+                refreshedWhileRebuilding.remove(key);
+                String[] parts = key.split("/");
+                recalculate(parts[0], new TreeSet<YearMonth>(Set.of(YearMonth.parse(parts[1]))));
+            }
+        }
+    }
+
+    // 定期的に再構築する(report.stats.rebuild-cron が "-" の場合は実行しない)
+    @Scheduled(cron = "${report.stats.rebuild-cron:-}")
+    void scheduledRebuild() {
+        rebuild();
+    }
+
+    private void swap(Map<String, BitSet> days) {
+        lock.writeLock().lock();
+        try {
+            submittedDays = days;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+  //************************************************************************************************************************************************************
+  //【集計の取得】(日報テーブルは参照しない)
+
+    // 従業員ごとの指定した月の提出状況
+    public List<EmployeeMonthStats> getMonthStats(List<Employee> employees, YearMonth month) {
+        List<EmployeeMonthStats> stats = new ArrayList<EmployeeMonthStats>(employees.size());
+        lock.readLock().lock();
+        try {
+            for (Employee employee : employees) {
+                BitSet days = submittedDays.get(employee.getCode());
+                stats.add(new EmployeeMonthStats(employee, month, days == null ? 0 : getMonth(days, month)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    // 社員が指定した期間(開始日・終了日を含む)に日報を提出した日数
+    public int countSubmittedDays(String employeeCode, LocalDate fromDate, LocalDate toDate) {
+        lock.readLock().lock();
+        try {
+            BitSet days = submittedDays.get(employeeCode);
+            if (days == null || !isIndexed(toDate)) {
+                return 0;
+            }
+            return days.get(index(fromDate), index(toDate) + 1).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+  //************************************************************************************************************************************************************
+  //【ビット列の操作】
+  // ビット位置は1970-01-01からの日数 それ以前の日付は日報として扱わない
+
+    private static int index(LocalDate date) {
+        return (int) Math.max(date.toEpochDay(), 0);
+    }
+
+    private static boolean isIndexed(LocalDate date) {
+        return date.toEpochDay() >= 0;
+    }
+
+    private static void setDay(BitSet days, LocalDate date) {
+        if (isIndexed(date)) {
+            days.set(index(date));
+        }
+    }
+
+    // 月の提出状況をビット列に反映する(1日が最下位ビット)
+    private static void setMonth(BitSet days, YearMonth month, int bits) {
+        if (!isIndexed(month.atDay(1))) {
+            return;
+        }
+        int first = index(month.atDay(1));
+        days.clear(first, first + month.lengthOfMonth());
+        for (int day = 0; day < month.lengthOfMonth(); day++) {
+            if ((bits & 1 << day) != 0) {
+                days.set(first + day);
+            }
+        }
+    }
+
+    private static int getMonth(BitSet days, YearMonth month) {
+        if (!isIndexed(month.atDay(1))) {
+            return 0;
+        }
+        int first = index(month.atDay(1));
+        long[] words = days.get(first, first + month.lengthOfMonth()).toLongArray();
+        return words.length == 0 ? 0 : (int) words[0];
+    }
+
+    // 提出した日を月ごとのビットに分ける
+    private static Map<YearMonth, Integer> monthBits(BitSet days) {
+        Map<YearMonth, Integer> months = new HashMap<YearMonth, Integer>();
+        for (int i = days.nextSetBit(0); i >= 0; i = days.nextSetBit(i + 1)) {
+            LocalDate date = LocalDate.ofEpochDay(i);
+            months.merge(YearMonth.from(date), 1 << date.getDayOfMonth() - 1, (a, b) -> a | b);
+        }
+        return months;
+    }
+
+    private static int toTargetMonth(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static YearMonth toYearMonth(int targetMonth) {
+        return YearMonth.of(targetMonth / 100, targetMonth % 100);
+    }
+}
@@ -1,32 +1,45 @@
 package com.techacademy.service;
 
-import java.util.Optional;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.techacademy.entity.Employee;
-import com.techacademy.repository.EmployeeRepository;
 
 @Service
-public class UserDetailService implements UserDetailsService {
-    private final EmployeeRepository employeeRepository;
+public class UserDetailService implements UserDetailsService, UserDetailsPasswordService {
+    // ログインに成功した従業員のキャッシュ名(社員番号がキー 従業員の登録・更新・削除時に破棄する)
+    public static final String USER_CACHE = "users";
+
+    private final EmployeeService employeeService;
 
     @Autowired
-    public UserDetailService(EmployeeRepository repository) {
-        this.employeeRepository = repository;
+    public UserDetailService(EmployeeService employeeService) {
+        this.employeeService = employeeService;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<Employee> employee = employeeRepository.findById(username);
+        // 従業員のキャッシュを経由して取得する
+        Employee employee = employeeService.findByCode(username);
 
-        if (employee.isEmpty()) {
+        if (employee == null) {
             throw new UsernameNotFoundException("Exception:Username Not Found");
         }
-        return new UserDetail(employee.get());
+        return new UserDetail(employee);
+    }
+
+    // ログイン成功時、古い形式・強度のパスワードのハッシュを作り直したものを保存する
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Employee employee = employeeService.upgradePassword(user.getUsername(), newPassword);
+
+        if (employee == null) {
+            return user;
+        }
+        return new UserDetail(employee);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+-- 従業員・日報テーブル
+CREATE TABLE employees (
+    code VARCHAR(10) NOT NULL,
+    name VARCHAR(20) NOT NULL,
+    role VARCHAR(10) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    delete_flg TINYINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (code)
+) ENGINE=InnoDB;
+
+CREATE TABLE reports (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    report_date DATE NOT NULL,
+    title VARCHAR(100) NOT NULL,
+    content LONGTEXT NOT NULL,
+    employee_code VARCHAR(10) NOT NULL,
+    delete_flg TINYINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reports_employee FOREIGN KEY (employee_code) REFERENCES employees (code)
+) ENGINE=InnoDB;
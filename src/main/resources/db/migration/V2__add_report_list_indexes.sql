@@ -0,0 +1,3 @@
+-- 日報一覧のページ取得用(全件・社員ごと)
+CREATE INDEX idx_reports_list ON reports (delete_flg, report_date, id);
+CREATE INDEX idx_reports_employee_list ON reports (employee_code, delete_flg, report_date, id);
@@ -0,0 +1,4 @@
+-- 同じ社員・同じ日付の日報は1件まで
+-- active_flg は削除されていない日報が1、削除済みがNULL(NULLは一意制約の対象外のため、論理削除した日報とは重複しない)
+ALTER TABLE reports ADD COLUMN active_flg TINYINT GENERATED ALWAYS AS (CASE WHEN delete_flg = 0 THEN 1 ELSE NULL END);
+ALTER TABLE reports ADD CONSTRAINT uk_reports_employee_date UNIQUE (employee_code, report_date, active_flg);
@@ -0,0 +1,12 @@
+-- 日報の提出状況の集計(社員・月ごと) 日報の登録・更新・削除のたびに該当する月を集計し直す
+-- target_month は yyyyMM、day_bits は日報を提出した日のビット(1日が最下位ビット)、report_count は提出した日数
+-- 初回起動時(集計が空の場合)は日報テーブルから作成する
+CREATE TABLE report_monthly_stats (
+    employee_code VARCHAR(10) NOT NULL,
+    target_month INTEGER NOT NULL,
+    report_count INTEGER NOT NULL,
+    day_bits INTEGER NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (employee_code, target_month),
+    CONSTRAINT fk_report_monthly_stats_employee FOREIGN KEY (employee_code) REFERENCES employees (code)
+) ENGINE=InnoDB;
@@ -0,0 +1,15 @@
+-- 初期データ(開発・テスト用) app.db.seed.enabled=false の場合は登録しない(プレースホルダー seedEnabled は FlywayConfiguration で設定する)
+-- 既に登録されている場合は登録しない(ファイルを変更すると再実行されるため)
+INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at)
+SELECT '1', '煌木　太郎', 'ADMIN', '$2a$10$vY93/U2cXCfEMBESYnDJUevcjJ208sXav23S.K8elE/J6Sxr4w5jO', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+  FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM employees WHERE code = '1') AND '${seedEnabled}' = 'true';
+INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at)
+SELECT '2', '田中　太郎', 'GENERAL', '$2a$10$HPIjRCymeRZKEIq.71TDduiEotOlb8Ai6KQUHCs4lGNYlLhcKv4Wi', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+  FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM employees WHERE code = '2') AND '${seedEnabled}' = 'true';
+
+INSERT INTO reports(report_date, title, content, employee_code, delete_flg, created_at, updated_at)
+SELECT CURRENT_DATE, '煌木　太郎の記載、タイトル', '煌木　太郎の記載、内容', '1', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+  FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM reports WHERE employee_code = '1') AND '${seedEnabled}' = 'true';
+INSERT INTO reports(report_date, title, content, employee_code, delete_flg, created_at, updated_at)
+SELECT CURRENT_DATE, '田中　太郎の記載、タイトル', '田中　太郎の記載、内容', '2', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+  FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM reports WHERE employee_code = '2') AND '${seedEnabled}' = 'true';
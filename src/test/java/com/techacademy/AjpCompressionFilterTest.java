@@ -0,0 +1,162 @@
+package com.techacademy;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+
+class AjpCompressionFilterTest {
+
+    private static final int AJP_PORT = 8009;
+
+    private final AjpCompressionFilter filter = new AjpCompressionFilter(AJP_PORT,
+            new String[] { "text/html", "text/css", "text/plain" }, 2048);
+
+    // AJPで受けた min-size を超えるHTMLはgzipで返すこと
+    @Test
+    void testCompressHtml() throws Exception {
+        String html = "<p>日報</p>".repeat(1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(ajpRequest(), response, (req, res) -> {
+            res.setContentType("text/html;charset=UTF-8");
+            res.getWriter().write(html);
+        });
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertEquals(html, new String(gunzip(response.getContentAsByteArray()), StandardCharsets.UTF_8));
+    }
+
+    // Spring MVCのメッセージコンバーターが設定したContent-Length(addHeader)を、圧縮後のレスポンスに付けないこと
+    @Test
+    void testCompressWithContentLengthHeader() throws Exception {
+        String text = "a".repeat(10000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(ajpRequest(), response, (req, res) -> {
+            ServletServerHttpResponse output = new ServletServerHttpResponse((HttpServletResponse) res);
+            new StringHttpMessageConverter().write(text, MediaType.TEXT_PLAIN, output);
+            output.close();
+        });
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(text, new String(gunzip(response.getContentAsByteArray()), StandardCharsets.UTF_8));
+    }
+
+    // 圧縮しない場合は、addHeaderで設定されたContent-Lengthを付けること
+    @Test
+    void testContentLengthHeaderNotCompressed() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(ajpRequest(), response, (req, res) -> {
+            HttpServletResponse servletResponse = (HttpServletResponse) res;
+            servletResponse.setContentType("text/plain");
+            servletResponse.addHeader(HttpHeaders.CONTENT_LENGTH, "5");
+            assertEquals("5", servletResponse.getHeader(HttpHeaders.CONTENT_LENGTH));
+            res.getOutputStream().write("hello".getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(5, response.getContentLength());
+        assertEquals("hello", response.getContentAsString());
+    }
+
+    // 非同期処理の場合は、処理が終わった時点で圧縮を終えること
+    @Test
+    void testAsync() throws Exception {
+        String html = "<p>日報</p>".repeat(1000);
+        MockHttpServletRequest request = ajpRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletResponse[] wrapped = new ServletResponse[1];
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.startAsync(req, res);
+            wrapped[0] = res;
+        });
+        wrapped[0].setContentType("text/html;charset=UTF-8");
+        wrapped[0].getWriter().write(html);
+        request.getAsyncContext().complete();
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(html, new String(gunzip(response.getContentAsByteArray()), StandardCharsets.UTF_8));
+    }
+
+    // min-size 以下のレスポンスはそのまま返し、Content-Lengthを付けること
+    @Test
+    void testSmallResponse() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(ajpRequest(), response, (req, res) -> {
+            res.setContentType("text/html;charset=UTF-8");
+            res.getWriter().write("<p>日報</p>");
+            res.flushBuffer();
+        });
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("<p>日報</p>", response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("<p>日報</p>".getBytes(StandardCharsets.UTF_8).length, response.getContentLength());
+    }
+
+    // 対象外のContent-Type、圧縮済みのレスポンス、HTTPで受けたリクエストは圧縮しないこと
+    @Test
+    void testNotCompressed() throws Exception {
+        byte[] body = new byte[10000];
+
+        MockHttpServletResponse image = new MockHttpServletResponse();
+        filter.doFilter(ajpRequest(), image, (req, res) -> {
+            res.setContentType("image/png");
+            res.getOutputStream().write(body);
+        });
+        assertNull(image.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, image.getContentAsByteArray());
+
+        MockHttpServletResponse precompressed = new MockHttpServletResponse();
+        filter.doFilter(ajpRequest(), precompressed, (req, res) -> {
+            res.setContentType("text/css");
+            ((HttpServletResponse) res).setHeader(HttpHeaders.CONTENT_ENCODING, "br");
+            res.getOutputStream().write(body);
+        });
+        assertEquals("br", precompressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, precompressed.getContentAsByteArray());
+
+        MockHttpServletRequest http = ajpRequest();
+        http.setLocalPort(8080);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(http, response, (req, res) -> {
+            res.setContentType("text/html");
+            res.getOutputStream().write(body);
+        });
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private static MockHttpServletRequest ajpRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reports");
+        request.setLocalPort(AJP_PORT);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        return request;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.techacademy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginThrottleFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LoginThrottleFilter filter = new LoginThrottleFilter(1, Duration.ZERO, meterRegistry);
+
+    // 上限までのログインは処理し、上限を超えたログインは /login?busy に戻すこと
+    @Test
+    void testRejectWhenBusy() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        boolean[] processed = new boolean[2];
+
+        // 1件目の処理中に2件目のログインが来た場合
+        filter.doFilter(login(), first, (req, res) -> {
+            processed[0] = true;
+            filter.doFilter(login(), second, (req2, res2) -> processed[1] = true);
+        });
+
+        assertTrue(processed[0]);
+        assertNull(first.getRedirectedUrl());
+        assertEquals(false, processed[1]);
+        assertEquals("/login?busy", second.getRedirectedUrl());
+        assertEquals(1.0, meterRegistry.get("login.rejected").counter().count());
+
+        // 1件目が終われば次のログインは処理すること
+        boolean[] next = new boolean[1];
+        filter.doFilter(login(), new MockHttpServletResponse(), (req, res) -> next[0] = true);
+        assertTrue(next[0]);
+    }
+
+    // ログイン以外のリクエストは制限しないこと
+    @Test
+    void testIgnoreOtherRequests() throws Exception {
+        boolean[] processed = new boolean[2];
+
+        filter.doFilter(login(), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(request("GET", "/login"), new MockHttpServletResponse(),
+                    (req2, res2) -> processed[0] = true);
+            filter.doFilter(request("GET", "/reports"), new MockHttpServletResponse(),
+                    (req2, res2) -> processed[1] = true);
+        });
+
+        assertTrue(processed[0]);
+        assertTrue(processed[1]);
+    }
+
+    private static MockHttpServletRequest login() {
+        return request("POST", "/login");
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+}
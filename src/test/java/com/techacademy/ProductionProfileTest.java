@@ -0,0 +1,48 @@
+package com.techacademy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 本番用の設定(application-prod.properties)が反映されること
+@SpringBootTest
+@ActiveProfiles("prod")
+class ProductionProfileTest {
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testConnectionPool() {
+        assertEquals("daily-report", dataSource.getPoolName());
+        assertEquals(dataSource.getMaximumPoolSize(), dataSource.getMinimumIdle());
+        assertEquals("true", dataSource.getDataSourceProperties().getProperty("cachePrepStmts"));
+        assertEquals("true", dataSource.getDataSourceProperties().getProperty("useServerPrepStmts"));
+        assertEquals("true", dataSource.getDataSourceProperties().getProperty("rewriteBatchedStatements"));
+    }
+
+    @Test
+    void testHibernateBatch() {
+        assertEquals("50", entityManagerFactory.getProperties().get("hibernate.jdbc.batch_size"));
+        assertEquals("true", entityManagerFactory.getProperties().get("hibernate.order_updates"));
+    }
+
+    // 実行したSQLをログに出さないこと
+    @Test
+    void testSqlLog() {
+        assertFalse(LoggerFactory.getLogger("org.hibernate.SQL").isDebugEnabled());
+        assertFalse(entityManagerFactory.getProperties().containsKey("hibernate.show_sql"));
+    }
+}
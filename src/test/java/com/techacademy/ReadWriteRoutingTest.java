@@ -0,0 +1,134 @@
+package com.techacademy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// 読み取り専用のトランザクションがレプリカ、それ以外がプライマリで処理されること
+// ローカルではプライマリと同じDBをレプリカに指定し、どちらのコネクションプールが使われたかで確認する
+@SpringBootTest(properties = { "app.datasource.replica.url=${spring.datasource.url}",
+        "app.datasource.replica.username=${spring.datasource.username}",
+        "app.datasource.replica.password=${spring.datasource.password}",
+        "app.datasource.replica.hikari.maximum-pool-size=2", "app.datasource.replica.hikari.minimum-idle=1" })
+class ReadWriteRoutingTest {
+
+    private final HikariDataSource primaryDataSource;
+    private final HikariDataSource replicaDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readWrite;
+    private final TransactionTemplate readOnly;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    ReadWriteRoutingTest(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("replicaDataSource") HikariDataSource replicaDataSource, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaDataSource = replicaDataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testReadOnlyUsesReplica() {
+        assertTrue(replicaDataSource.isReadOnly());
+        readOnly.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Long.class);
+            assertEquals(1, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(0, primaryDataSource.getHikariPoolMXBean().getActiveConnections());
+            // レプリカから読んだ内容は2次キャッシュに入れない
+            assertEquals(CacheMode.GET, entityManager.unwrap(Session.class).getCacheMode());
+        });
+    }
+
+    @Test
+    void testReadWriteUsesPrimary() {
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Long.class);
+            assertEquals(1, primaryDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(0, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(CacheMode.NORMAL, entityManager.unwrap(Session.class).getCacheMode());
+        });
+    }
+
+    // 書き込みを行ったセッションは、読み取り専用のトランザクションもプライマリで処理すること
+    @Test
+    void testReadYourWrites() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        readOnly.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Long.class);
+            assertEquals(1, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+        });
+        assertFalse(request.getSession().getAttributeNames().hasMoreElements());
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE employees SET name = name WHERE code = '1'"));
+
+        // 同じセッションの別のリクエスト
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setSession(request.getSession());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next));
+        readOnly.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Long.class);
+            assertEquals(1, primaryDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(0, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(CacheMode.NORMAL, entityManager.unwrap(Session.class).getCacheMode());
+        });
+
+        // 別のセッションはレプリカを使う
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        readOnly.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Long.class);
+            assertEquals(1, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+        });
+    }
+
+    // 書き込みを行わなかったトランザクション、ロールバックしたトランザクションはセッションに記録しないこと
+    @Test
+    void testReadWriteWithoutWrite() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        readWrite.executeWithoutResult(
+                status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees WHERE code = '1'", Long.class));
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE employees SET name = name WHERE code = '1'");
+            status.setRollbackOnly();
+        });
+        assertFalse(request.getSession().getAttributeNames().hasMoreElements());
+
+        readOnly.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Long.class);
+            assertEquals(1, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+        });
+    }
+}
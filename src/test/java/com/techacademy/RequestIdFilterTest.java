@@ -0,0 +1,48 @@
+package com.techacademy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestIdFilterTest {
+
+    private final RequestIdFilter filter = new RequestIdFilter();
+
+    // 受け取った X-Request-Id をそのまま使うこと
+    @Test
+    void testKeepRequestId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestIdFilter.HEADER, "abc-123_DEF");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String[] logged = new String[1];
+
+        filter.doFilter(request, response, (req, res) -> logged[0] = MDC.get(RequestIdFilter.MDC_KEY));
+
+        assertEquals("abc-123_DEF", logged[0]);
+        assertEquals("abc-123_DEF", response.getHeader(RequestIdFilter.HEADER));
+        // リクエストが終わったらMDCから消えていること
+        assertNull(MDC.get(RequestIdFilter.MDC_KEY));
+    }
+
+    // 無い場合や不正な値の場合は採番すること
+    @Test
+    void testGenerateRequestId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestIdFilter.HEADER, "bad\nvalue");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String[] logged = new String[1];
+
+        filter.doFilter(request, response, (req, res) -> logged[0] = MDC.get(RequestIdFilter.MDC_KEY));
+
+        assertNotNull(logged[0]);
+        assertNotEquals("bad\nvalue", logged[0]);
+        assertEquals(logged[0], response.getHeader(RequestIdFilter.HEADER));
+        assertNull(MDC.get(RequestIdFilter.MDC_KEY));
+    }
+}
@@ -0,0 +1,81 @@
+package com.techacademy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardThreadExecutor;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ajp.AbstractAjpProtocol;
+import org.apache.coyote.ajp.AjpNioProtocol;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "app.tomcat.ajp.port=0",
+        "app.tomcat.ajp.protocol=nio",
+        "app.tomcat.ajp.packet-size=16384",
+        "app.tomcat.ajp.accept-count=50",
+        "app.tomcat.ajp.connection-timeout=20s",
+        "app.tomcat.shared-executor.enabled=true",
+        "app.tomcat.shared-executor.max-threads=50" })
+class TomcatConfigurationTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private StandardThreadExecutor sharedExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 設定した値でAJPコネクタが追加され、HTTPとAJPが同じスレッドプールを使うこと
+    @Test
+    void testConnectors() {
+        Connector[] connectors = ((TomcatWebServer) context.getWebServer()).getTomcat().getService().findConnectors();
+        assertEquals(2, connectors.length);
+        Connector ajp = Arrays.stream(connectors)
+                .filter(connector -> connector.getProtocolHandler() instanceof AbstractAjpProtocol).findFirst().get();
+
+        AbstractAjpProtocol<?> protocol = (AbstractAjpProtocol<?>) ajp.getProtocolHandler();
+        assertEquals(AjpNioProtocol.class, protocol.getClass());
+        assertEquals(16384, protocol.getPacketSize());
+        assertEquals(50, protocol.getAcceptCount());
+        assertEquals(20000, protocol.getConnectionTimeout());
+        assertEquals(50, sharedExecutor.getMaxThreads());
+        for (Connector connector : connectors) {
+            assertSame(sharedExecutor, connector.getProtocolHandler().getExecutor());
+        }
+
+        // コネクタごとの状態が記録されること
+        String name = ((AbstractProtocol<?>) protocol).getName();
+        assertNotNull(meterRegistry.find("tomcat.connector.threads.max").tag("connector", name).gauge());
+        assertEquals(50, meterRegistry.find("tomcat.connector.threads.max").tag("connector", name).gauge().value());
+        assertNotNull(meterRegistry.find("tomcat.connector.connections.current").tag("connector", name).gauge());
+    }
+
+    // HTTPはTomcatが圧縮し、AJPは圧縮用のフィルターが登録されること
+    @Test
+    void testCompression() {
+        Connector http = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+        AbstractHttp11Protocol<?> protocol = (AbstractHttp11Protocol<?>) http.getProtocolHandler();
+        assertEquals("on", protocol.getCompression());
+        assertEquals(2048, protocol.getCompressionMinSize());
+        assertTrue(Arrays.asList(protocol.getCompressibleMimeTypes()).contains("text/html"));
+
+        assertNotNull(context.getBean("ajpCompressionFilter", FilterRegistrationBean.class).getFilter());
+    }
+}
@@ -3,6 +3,7 @@ package com.techacademy.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
@@ -11,6 +12,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -28,8 +31,10 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.techacademy.constants.ErrorKinds;
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Employee.Role;
+import com.techacademy.service.EmployeeImportResult;
 import com.techacademy.service.UserDetail;
 
 @SpringBootTest
@@ -345,4 +350,39 @@ class EmployeeControllerTest {
 
     }
 
+    // 従業員一括登録
+    // テストケース1 一般ユーザーは表示できないこと
+    @Test
+    @WithMockUser(authorities = "GENERAL")
+    void testImportFormGeneral() throws Exception {
+        mockMvc.perform(get("/employees/import")).andExpect(status().isForbidden());
+    }
+
+    // テストケース2 管理者 CSVをアップロードすると行ごとの結果が表示されること
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void testImportAdmin() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv",
+                "code,name,role,password\n1,登録済み,GENERAL,password01\n".getBytes(StandardCharsets.UTF_8));
+
+        MvcResult result = mockMvc.perform(multipart("/employees/import").file(file).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("employees/import"))
+                .andReturn();
+        EmployeeImportResult importResult = (EmployeeImportResult) result.getModelAndView().getModel().get("result");
+        assertEquals(0, importResult.getImported());
+        assertEquals(ErrorKinds.DUPLICATE_ERROR, importResult.getRows().get(0).getResult());
+    }
+
+    // テストケース3 CSV以外のファイルはエラーを表示すること
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void testImportNotCsv() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "employees.txt", "text/plain",
+                "code,name,role,password\n".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/employees/import").file(file).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("fileError", "CSVファイルを選択してください"));
+    }
 }
@@ -0,0 +1,534 @@
+package com.techacademy.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import com.aayushatharva.brotli4j.decoder.DirectDecompress;
+import com.techacademy.dto.ReportDetail;
+import com.techacademy.dto.ReportListItem;
+import com.techacademy.entity.Employee;
+import com.techacademy.entity.Employee.Role;
+import com.techacademy.entity.Report;
+import com.techacademy.repository.ReportRepository;
+import com.techacademy.service.ReportImportResult;
+import com.techacademy.service.ReportSearchResult;
+import com.techacademy.service.ReportSearchService;
+import com.techacademy.service.UserDetail;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+class ReportControllerTest {
+
+    private MockMvc mockMvc;
+
+    private final WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // テスト中に追加した日報(終了後に削除する)
+    private final List<Report> addedReports = new ArrayList<Report>();
+
+    ReportControllerTest(WebApplicationContext context) {
+        this.webApplicationContext = context;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        // Spring Securityを有効にする
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+    }
+
+    @AfterEach
+    void afterEach() {
+        reportRepository.deleteAll(addedReports);
+        addedReports.forEach(report -> reportSearchService.delete(report.getId()));
+        addedReports.clear();
+    }
+
+    // 日報一覧画面
+    // テストケース1 管理者 日報件数が増えても発行されるSQLの数が変わらないこと
+    @Test
+    void testListStatementCountAdmin() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+
+        // 1回目は従業員のキャッシュが空の場合があるため、2回目以降で比較する
+        countListStatements(userDetail);
+        long before = countListStatements(userDetail);
+        addReports("1", 10);
+        addReports("2", 10);
+        long after = countListStatements(userDetail);
+
+        assertEquals(before, after);
+    }
+
+    // テストケース2 一般ユーザー 日報件数が増えても発行されるSQLの数が変わらないこと
+    @Test
+    void testListStatementCountGeneral() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+
+        // 1回目は従業員のキャッシュが空の場合があるため、2回目以降で比較する
+        countListStatements(userDetail);
+        long before = countListStatements(userDetail);
+        addReports("2", 20);
+        long after = countListStatements(userDetail);
+
+        assertEquals(before, after);
+    }
+
+    // テストケース3 次ページの開始位置を指定すると、続きの日報が取得できること
+    @Test
+    void testListNextPage() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("2", 25);
+
+        // 1ページ目(初期データ1件 + 追加25件のうち20件)
+        MvcResult result = mockMvc.perform(get("/reports").with(user(userDetail)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("listSize", 26L))
+                .andExpect(model().attributeExists("nextDate", "nextId"))
+                .andReturn();
+        Map<String, Object> firstPage = result.getModelAndView().getModel();
+        assertEquals(20, ((List<?>) firstPage.get("reportList")).size());
+
+        // 2ページ目(残り6件、次ページなし)
+        result = mockMvc.perform(get("/reports").with(user(userDetail))
+                .param("date", firstPage.get("nextDate").toString())
+                .param("id", firstPage.get("nextId").toString()))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeDoesNotExist("nextId"))
+                .andReturn();
+        @SuppressWarnings("unchecked")
+        List<ReportListItem> secondPage = (List<ReportListItem>) result.getModelAndView().getModel().get("reportList");
+        assertEquals(6, secondPage.size());
+        assertEquals("2000-01-06", secondPage.get(0).reportDate().toString());
+    }
+
+    // 日報詳細画面
+    // テストケース14 社員情報を読み込まずに(open-in-viewなしで)氏名が表示されること
+    @Test
+    void testDetail() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("2", 1);
+
+        MvcResult result = mockMvc.perform(get("/reports/detail/{id}", addedReports.get(0).getId()).with(user(userDetail)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/detail"))
+                .andReturn();
+        ReportDetail detail = (ReportDetail) result.getModelAndView().getModel().get("report");
+        assertEquals("田中　太郎", detail.employeeName());
+        assertEquals("テスト内容0", detail.content());
+    }
+
+    // 日報更新画面
+    // テストケース15 更新画面に日報を書いた人の氏名が表示され、更新できること
+    @Test
+    void testUpdate() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("2", 1);
+        Integer id = addedReports.get(0).getId();
+
+        mockMvc.perform(get("/reports/update/{id}", id).with(user(userDetail)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("reportAuthorName", "田中　太郎"));
+        mockMvc.perform(post("/reports/update/{id}", id).with(user(userDetail)).with(csrf())
+                .param("reportDate", "2000-02-01").param("title", "更新後のタイトル").param("content", "更新後の内容"))
+                .andExpect(status().is3xxRedirection());
+
+        Report updated = reportRepository.findById(id).get();
+        assertEquals(LocalDate.of(2000, 2, 1), updated.getReportDate());
+        assertEquals("更新後のタイトル", updated.getTitle());
+    }
+
+    // 日報新規登録画面
+    // テストケース9 同じ日付の日報が登録済みの場合はエラーになること
+    @Test
+    void testCreateDuplicateDate() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("2", 1);
+
+        mockMvc.perform(post("/reports/add").with(user(userDetail)).with(csrf())
+                .param("reportDate", "2000-01-01").param("title", "タイトル").param("content", "内容"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/new"))
+                .andExpect(model().attributeHasFieldErrorCode("report", "reportDate", "error.report"));
+        // 初期データ1件 + 追加1件のまま登録されていないこと
+        assertEquals(2, reportRepository.countByEmployeeCodeAndDeleteFlgFalse("2"));
+    }
+
+    // 日報一括登録画面
+    // テストケース4 一般ユーザーは表示できないこと
+    @Test
+    void testImportFormGeneral() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+
+        mockMvc.perform(get("/reports/import").with(user(userDetail))).andExpect(status().isForbidden());
+    }
+
+    // テストケース5 管理者 CSVをアップロードすると登録結果が表示されること
+    @Test
+    void testImportAdmin() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+        MockMultipartFile file = new MockMultipartFile("file", "reports.csv", "text/csv",
+                "employee_code,report_date,title,content\n2,2000-03-01,タイトル,内容\n".getBytes(StandardCharsets.UTF_8));
+
+        MvcResult result = mockMvc.perform(multipart("/reports/import").file(file).with(user(userDetail)).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/import"))
+                .andReturn();
+        ReportImportResult importResult = (ReportImportResult) result.getModelAndView().getModel().get("result");
+        assertEquals(1, importResult.getImported());
+        addedReports.addAll(reportRepository.findByEmployeeCodeAndReportDate("2", LocalDate.of(2000, 3, 1)));
+    }
+
+    // 日報出力
+    // テストケース6 管理者 CSV 社員番号・日付で絞り込んで、新しい日付順に出力されること
+    @Test
+    void testExportCsv() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+        addReports("1", 3);
+        addReports("2", 5);
+
+        MvcResult result = mockMvc.perform(get("/reports/export").with(user(userDetail))
+                .param("format", "CSV").param("employeeCode", "2").param("from", "2000-01-02").param("to", "2000-01-04"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andReturn();
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+
+        assertEquals(4, lines.length);
+        assertEquals("\uFEFFreport_date,employee_code,employee_name,title,content", lines[0]);
+        assertEquals("2000-01-04,2,田中　太郎,テストタイトル3,テスト内容3", lines[1]);
+        assertEquals("2000-01-02,2,田中　太郎,テストタイトル1,テスト内容1", lines[3]);
+    }
+
+    // テストケース7 管理者 Excel 全件が出力されること
+    @Test
+    void testExportXlsx() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+        addReports("1", 3);
+
+        MvcResult result = mockMvc.perform(get("/reports/export").with(user(userDetail)).param("format", "XLSX"))
+                .andExpect(status().isOk())
+                .andReturn();
+        long total = reportRepository.countByDeleteFlgFalse();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(total, sheet.getLastRowNum());
+            assertEquals("report_date", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertTrue(sheet.getRow(1).getCell(0).getLocalDateTimeCellValue() != null);
+        }
+    }
+
+    // テストケース21 削除された社員の日報も、氏名を空欄にして出力されること
+    @Test
+    void testExportDeletedEmployee() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+        addReports("2", 2);
+        jdbcTemplate.update("UPDATE employees SET delete_flg = 1 WHERE code = '2'");
+        try {
+            MvcResult csv = mockMvc.perform(get("/reports/export").with(user(userDetail))
+                    .param("format", "CSV").param("employeeCode", "2").param("from", "2000-01-01").param("to", "2000-01-02"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            String[] lines = csv.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+            assertEquals(3, lines.length);
+            assertEquals("2000-01-02,2,,テストタイトル1,テスト内容1", lines[1]);
+
+            MvcResult xlsx = mockMvc.perform(get("/reports/export").with(user(userDetail))
+                    .param("format", "XLSX").param("employeeCode", "2").param("from", "2000-01-01").param("to", "2000-01-02"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(xlsx.getResponse().getContentAsByteArray()))) {
+                Sheet sheet = workbook.getSheetAt(0);
+                assertEquals(2, sheet.getLastRowNum());
+                assertEquals("2", sheet.getRow(1).getCell(1).getStringCellValue());
+                assertEquals("", sheet.getRow(1).getCell(2).getStringCellValue());
+            }
+        } finally {
+            jdbcTemplate.update("UPDATE employees SET delete_flg = 0 WHERE code = '2'");
+        }
+    }
+
+    // テストケース8 一般ユーザーは出力できないこと
+    @Test
+    void testExportGeneral() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+
+        mockMvc.perform(get("/reports/export").with(user(userDetail))).andExpect(status().isForbidden());
+    }
+
+    // 日報検索画面
+    // テストケース10 一般ユーザーは自分の日報のみ検索結果に表示されること
+    @Test
+    void testSearchGeneral() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("1", 2);
+        addReports("2", 3);
+        reportSearchService.indexAll(addedReports);
+
+        MvcResult result = mockMvc.perform(get("/reports/search").with(user(userDetail)).param("q", "テスト内容"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/search"))
+                .andReturn();
+        ReportSearchResult searchResult = (ReportSearchResult) result.getModelAndView().getModel().get("result");
+        List<Integer> ownIds = addedReports.stream().filter(report -> "2".equals(report.getEmployeeCode())).map(Report::getId).toList();
+        assertEquals(3, searchResult.getHits().size());
+        assertTrue(searchResult.getHits().stream().allMatch(hit -> ownIds.contains(hit.getReport().id())));
+        assertTrue(result.getResponse().getContentAsString(StandardCharsets.UTF_8).contains("<mark>テスト</mark>"));
+    }
+
+    // テストケース20 大きすぎるページ番号を指定してもエラーにならないこと
+    @Test
+    void testSearchLargePage() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+
+        MvcResult result = mockMvc.perform(get("/reports/search").with(user(userDetail))
+                .param("q", "テスト").param("page", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andReturn();
+        ReportSearchResult searchResult = (ReportSearchResult) result.getModelAndView().getModel().get("result");
+        assertEquals(0, searchResult.getHits().size());
+    }
+
+    // テストケース11 一般ユーザーはインデックスを再構築できないこと
+    @Test
+    void testSearchRebuildGeneral() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+
+        mockMvc.perform(post("/reports/search/rebuild").with(user(userDetail)).with(csrf()))
+                .andExpect(status().isForbidden());
+    }
+
+    // 提出状況画面
+    // テストケース12 管理者 指定した月の従業員ごとの提出状況が表示されること
+    @Test
+    void testStatsAdmin() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+
+        mockMvc.perform(get("/reports/stats").with(user(userDetail)).param("month", "2000-02"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/stats"))
+                .andExpect(model().attribute("days", 29))
+                .andExpect(model().attributeExists("statsList"));
+    }
+
+    // テストケース13 一般ユーザーは表示できないこと
+    @Test
+    void testStatsGeneral() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+
+        mockMvc.perform(get("/reports/stats").with(user(userDetail))).andExpect(status().isForbidden());
+    }
+
+    // 条件付きGET
+    // テストケース16 詳細画面 日報が更新されていなければ304を返し、更新後は画面を返すこと
+    @Test
+    void testDetailNotModified() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("2", 1);
+        Integer id = addedReports.get(0).getId();
+        MockHttpSession session = new MockHttpSession();
+
+        String etag = mockMvc.perform(get("/reports/detail/{id}", id).with(user(userDetail)).session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/reports/detail/{id}", id).with(user(userDetail)).session(session)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // 別のセッション(ログインし直した場合など)では画面を返す
+        mockMvc.perform(get("/reports/detail/{id}", id).with(user(userDetail)).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/reports/update/{id}", id).with(user(userDetail)).with(csrf()).session(session)
+                .param("reportDate", "2000-02-01").param("title", "更新後のタイトル").param("content", "更新後の内容"))
+                .andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/reports/detail/{id}", id).with(user(userDetail)).session(session)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/detail"));
+    }
+
+    // テストケース17 一覧画面 日報が変わっていなければ304を返し、日報を更新すると画面を返すこと
+    @Test
+    void testListNotModified() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        addReports("2", 1);
+        Integer id = addedReports.get(0).getId();
+        MockHttpSession session = new MockHttpSession();
+
+        String etag = mockMvc.perform(get("/reports").with(user(userDetail)).session(session))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/reports").with(user(userDetail)).session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        // 管理者の一覧は別の内容
+        UserDetail admin = new UserDetail(createEmployee("1", "煌木　太郎", Role.ADMIN));
+        mockMvc.perform(get("/reports").with(user(admin)).session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/reports/update/{id}", id).with(user(userDetail)).with(csrf()).session(session)
+                .param("reportDate", "2000-02-01").param("title", "更新後のタイトル").param("content", "更新後の内容"))
+                .andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/reports").with(user(userDetail)).session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("reports/list"));
+    }
+
+    // テストケース18 css・jsのURLに内容のハッシュが付き、長期間キャッシュできること
+    @Test
+    void testStaticResourceVersioned() throws Exception {
+        UserDetail userDetail = new UserDetail(createEmployee("2", "田中　太郎", Role.GENERAL));
+        // URLの書き換えはサーブレットフィルター(ResourceUrlEncodingFilter)で行う
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity())
+                .addFilters(webApplicationContext.getBean("resourceUrlEncodingFilter", FilterRegistrationBean.class).getFilter())
+                .build();
+        String html = mockMvc.perform(get("/reports").with(user(userDetail)))
+                .andReturn().getResponse().getContentAsString();
+
+        Matcher matcher = Pattern.compile("/css/bootstrap\\.min-[0-9a-f]{32}\\.css").matcher(html);
+        assertTrue(matcher.find(), "ハッシュ付きのURLになっていません");
+        mockMvc.perform(get(matcher.group()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"));
+        assertTrue(html.contains("/js/bootstrap.min-"));
+    }
+
+    // テストケース19 css・jsはビルド時に作った圧縮済みのファイル(.gz・.br)を返すこと
+    @Test
+    void testStaticResourcePrecompressed() throws Exception {
+        byte[] original = mockMvc.perform(get("/css/bootstrap.min.css"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult result = mockMvc.perform(get("/css/bootstrap.min.css").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        assertTrue(compressed.length < original.length / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(original, in.readAllBytes());
+        }
+
+        // Brotliに対応している場合は .br を返す
+        MvcResult brotli = mockMvc.perform(get("/css/bootstrap.min.css").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "br"))
+                .andReturn();
+        Brotli4jLoader.ensureAvailability();
+        DirectDecompress decompressed = Decoder.decompress(brotli.getResponse().getContentAsByteArray());
+        assertEquals(DecoderJNI.Status.DONE, decompressed.getResultStatus());
+        assertArrayEquals(original, decompressed.getDecompressedData());
+    }
+
+    // 一覧画面を1回表示した時に発行されたSQLの数を返す
+    private long countListStatements(UserDetail userDetail) throws Exception {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // クエリキャッシュに載っているとSQLが発行されないため、DBから取得した場合の数を比較する
+        sessionFactory.getCache().evictQueryRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/reports").with(user(userDetail))) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(model().attributeExists("reportList")) // Modelの内容を確認
+                .andExpect(view().name("reports/list")); // viewの確認
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addReports(String employeeCode, int count) {
+        List<Report> reports = new ArrayList<Report>();
+        for (int i = 0; i < count; i++) {
+            Report report = new Report();
+            report.setReportDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            report.setTitle("テストタイトル" + i);
+            report.setContent("テスト内容" + i);
+            report.setEmployeeCode(employeeCode);
+            report.setDeleteFlg(false);
+            reports.add(report);
+        }
+        addedReports.addAll(reportRepository.saveAll(reports));
+    }
+
+    private Employee createEmployee(String code, String name, Role role) {
+        Employee employee = new Employee();
+        employee.setCode(code);
+        employee.setName(name);
+        LocalDateTime now = LocalDateTime.now();
+        employee.setCreatedAt(now);
+        employee.setUpdatedAt(now);
+        employee.setDeleteFlg(false);
+        employee.setPassword("");
+        employee.setRole(role);
+        return employee;
+    }
+
+}
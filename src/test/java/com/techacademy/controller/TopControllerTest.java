@@ -1,23 +1,43 @@
 package com.techacademy.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.logout;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.techacademy.service.EmployeeService;
+import com.techacademy.service.UserDetail;
+import com.techacademy.service.UserDetailService;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 @ExtendWith(SpringExtension.class)
@@ -26,9 +46,21 @@ class TopControllerTest {
     private MockMvc mockMvc;
 
     private final WebApplicationContext webApplicationContext;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final EmployeeService employeeService;
+
+    // ログインの確認に使う従業員(テストごとに登録・削除する)
+    private static final String CODE = "login01";
+    private static final String PASSWORD = "password1";
 
-    TopControllerTest(WebApplicationContext context) {
+    @Autowired
+    TopControllerTest(WebApplicationContext context, JdbcTemplate jdbcTemplate, CacheManager cacheManager,
+            EmployeeService employeeService) {
         this.webApplicationContext = context;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.employeeService = employeeService;
     }
 
     @BeforeEach
@@ -37,6 +69,13 @@ class TopControllerTest {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
     }
 
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM employees WHERE code = ?", CODE);
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).evict(CODE);
+        cacheManager.getCache(UserDetailService.USER_CACHE).evict(CODE);
+    }
+
     // ログイン処理
     @Test
     @WithMockUser
@@ -48,6 +87,47 @@ class TopControllerTest {
 
     }
 
+    // 接頭辞のない古いハッシュでログインでき、ログイン時に新しい形式・強度で作り直すこと
+    @Test
+    void testLoginUpgradesPassword() throws Exception {
+        addEmployee(new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        mockMvc.perform(formLogin().user(CODE).password(PASSWORD)).andExpect(authenticated().withUsername(CODE));
+
+        String password = jdbcTemplate.queryForObject("SELECT password FROM employees WHERE code = ?", String.class,
+                CODE);
+        assertTrue(password.startsWith("{bcrypt}$2a$10$"));
+        // 作り直したハッシュでもログインできること
+        mockMvc.perform(formLogin().user(CODE).password(PASSWORD)).andExpect(authenticated().withUsername(CODE));
+    }
+
+    // ログインに成功した従業員はキャッシュし、パスワードが違う場合はログインできないこと
+    @Test
+    void testLoginUsesUserCache() throws Exception {
+        addEmployee("{bcrypt}" + new BCryptPasswordEncoder().encode(PASSWORD));
+        Cache users = cacheManager.getCache(UserDetailService.USER_CACHE);
+
+        mockMvc.perform(formLogin().user(CODE).password(PASSWORD)).andExpect(authenticated());
+        assertNotNull(users.get(CODE));
+
+        mockMvc.perform(formLogin().user(CODE).password("wrongpass1")).andExpect(unauthenticated());
+    }
+
+    // 削除された従業員はキャッシュに残らず、ログインできないこと
+    @Test
+    void testLoginAfterDelete() throws Exception {
+        addEmployee("{bcrypt}" + new BCryptPasswordEncoder().encode(PASSWORD));
+        mockMvc.perform(formLogin().user(CODE).password(PASSWORD)).andExpect(authenticated());
+
+        // 管理者が削除する
+        employeeService.delete(CODE, new UserDetail(employeeService.findByCode("1")));
+
+        assertNull(cacheManager.getCache(UserDetailService.USER_CACHE).get(CODE));
+        mockMvc.perform(formLogin().user(CODE).password(PASSWORD)).andExpect(unauthenticated());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees WHERE code = ? AND delete_flg = 1",
+                Integer.class, CODE));
+    }
+
     // ログアウト処理
     @Test
     @WithMockUser
@@ -55,4 +135,9 @@ class TopControllerTest {
         this.mockMvc.perform(logout());
     }
 
+    private void addEmployee(String password) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at)"
+                + " VALUES (?, ?, 'GENERAL', ?, 0, ?, ?)", CODE, "ログイン確認", password, now, now);
+    }
 }
@@ -0,0 +1,141 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.entity.Employee;
+import com.techacademy.entity.Employee.Role;
+import com.techacademy.service.EmployeeImportResult.RowResult;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class EmployeeImportServiceTest {
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 重複チェックの後に別の処理が登録した場合を再現するため、重複チェックのクエリに割り込む
+    @SpyBean
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM employees WHERE code LIKE 'imp%'");
+    }
+
+    // 正しい行だけが登録され、それ以外は行ごとにエラーの種類が分かること
+    @Test
+    void testImport() throws IOException {
+        String csv = "\uFEFFcode,name,role,password\n"
+                + "imp01,一括　一郎,GENERAL,password01\n"
+                + "imp02,一括　二郎,管理者,password02\n"
+                + "imp01,一括　重複,GENERAL,password01\n"
+                + "1,登録済み,GENERAL,password01\n"
+                + "imp03,一括　三郎,GENERAL,pass\n"
+                + "imp04,一括　四郎,GENERAL,パスワード0001\n"
+                + "imp05,一括　五郎,MANAGER,password05\n"
+                + "imp06,,GENERAL,password06\n";
+
+        EmployeeImportResult result = employeeImportService.importEmployees(input(csv));
+
+        assertEquals(8, result.getTotal());
+        assertEquals(2, result.getImported());
+        assertEquals(6, result.getErrorCount());
+        assertEquals(List.of(ErrorKinds.SUCCESS, ErrorKinds.SUCCESS, ErrorKinds.DUPLICATE_ERROR,
+                ErrorKinds.DUPLICATE_ERROR, ErrorKinds.RANGECHECK_ERROR, ErrorKinds.HALFSIZE_ERROR,
+                ErrorKinds.INPUT_ERROR, ErrorKinds.INPUT_ERROR),
+                result.getRows().stream().map(RowResult::getResult).collect(Collectors.toList()));
+        assertEquals("既に登録されている社員番号です", result.getRows().get(3).getMessage());
+        assertEquals("氏名: 値を入力してください", result.getRows().get(7).getMessage());
+        assertNull(result.getRows().get(0).getMessage());
+
+        // 登録した従業員は、パスワードがハッシュ化されていること
+        Employee employee = employeeService.findByCode("imp02");
+        assertEquals("一括　二郎", employee.getName());
+        assertEquals(Role.ADMIN, employee.getRole());
+        assertTrue(passwordEncoder.matches("password02", employee.getPassword()));
+    }
+
+    // ヘッダーがない場合は登録しないこと
+    @Test
+    void testImportWithoutHeader() throws IOException {
+        EmployeeImportResult result = employeeImportService
+                .importEmployees(input("imp01,一括　一郎,GENERAL,password01\n"));
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getErrorCount());
+        assertNull(employeeService.findByCode("imp01"));
+    }
+
+    // 重複チェックの後に同じ社員番号が複数登録された場合も、その行だけがエラーになり、残りは登録されること
+    @Test
+    void testImportWithConcurrentInsert() throws IOException {
+        // 最初の重複チェックの直後に、別の処理が imp01・imp02 を登録する
+        AtomicBoolean inserted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Object existing = invocation.callRealMethod();
+            if (inserted.compareAndSet(false, true)) {
+                for (String code : List.of("imp01", "imp02")) {
+                    jdbcTemplate.update("INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at)"
+                            + " VALUES (?, '同時に登録', 'GENERAL', 'password', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", code);
+                }
+            }
+            return existing;
+        }).when(namedParameterJdbcTemplate).queryForList(startsWith("SELECT code FROM employees"),
+                any(SqlParameterSource.class), eq(String.class));
+
+        String csv = "code,name,role,password\n"
+                + "imp01,一括　一郎,GENERAL,password01\n"
+                + "imp02,一括　二郎,GENERAL,password02\n"
+                + "imp03,一括　三郎,GENERAL,password03\n";
+
+        EmployeeImportResult result = employeeImportService.importEmployees(input(csv));
+
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getErrorCount());
+        assertEquals(List.of(ErrorKinds.DUPLICATE_ERROR, ErrorKinds.DUPLICATE_ERROR, ErrorKinds.SUCCESS),
+                result.getRows().stream().map(RowResult::getResult).collect(Collectors.toList()));
+        assertEquals(List.of("同時に登録", "同時に登録", "一括　三郎"),
+                jdbcTemplate.queryForList("SELECT name FROM employees WHERE code LIKE 'imp%' ORDER BY code", String.class));
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
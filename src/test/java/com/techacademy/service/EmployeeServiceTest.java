@@ -8,8 +8,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Employee.Role;
@@ -21,6 +25,12 @@ class EmployeeServiceTest {
     @Autowired
     private EmployeeService service;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
     @Test
     @WithMockUser
     void testFindAll() {
@@ -62,4 +72,56 @@ class EmployeeServiceTest {
 
     }
 
+    @Test
+    @WithMockUser
+    @Transactional
+    void testFindByCodeCache() {
+        Cache cache = cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE);
+        cache.clear();
+
+        // 取得した従業員はキャッシュされる
+        Employee employee = service.findByCode("2");
+        assertSame(employee, cache.get("2").get());
+        assertSame(employee, service.findByCode("2"));
+
+        // 取得できなかった場合はキャッシュしない
+        service.findByCode("100");
+        assertNull(cache.get("100"));
+
+        // 更新するとキャッシュから破棄される
+        Employee updatedEmployee = new Employee();
+        updatedEmployee.setCode("2");
+        updatedEmployee.setName("田中　次郎");
+        updatedEmployee.setRole(Role.GENERAL);
+        updatedEmployee.setPassword(employee.getPassword());
+        service.update(updatedEmployee);
+        assertNull(cache.get("2"));
+    }
+
+    @Test
+    @WithMockUser
+    void testUpdateRoleExpiresSessions() {
+        // 従業員番号2でログイン中のセッション
+        Employee employee = service.findByCode("2");
+        sessionRegistry.registerNewSession("test-session", new UserDetail(employee));
+
+        try {
+            // 権限を変更すると、ログイン中のセッションが失効する
+            service.update(copyWithRole(employee, Role.ADMIN));
+            assertTrue(sessionRegistry.getSessionInformation("test-session").isExpired());
+        } finally {
+            service.update(copyWithRole(employee, Role.GENERAL));
+            sessionRegistry.removeSessionInformation("test-session");
+        }
+    }
+
+    private Employee copyWithRole(Employee employee, Role role) {
+        Employee copy = new Employee();
+        copy.setCode(employee.getCode());
+        copy.setName(employee.getName());
+        copy.setPassword(employee.getPassword());
+        copy.setRole(role);
+        return copy;
+    }
+
 }
@@ -0,0 +1,33 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.techacademy.constants.ErrorKinds;
+
+class PasswordPolicyTest {
+
+    private final PasswordPolicy passwordPolicy = new PasswordPolicy();
+
+    @Test
+    void testValidate() {
+        // 正常
+        assertEquals(ErrorKinds.CHECK_OK, passwordPolicy.validate("abcd1234"));
+        assertEquals(ErrorKinds.CHECK_OK, passwordPolicy.validate("ABCDEFGH12345678"));
+
+        // 空白
+        assertEquals(ErrorKinds.BLANK_ERROR, passwordPolicy.validate(""));
+        assertEquals(ErrorKinds.BLANK_ERROR, passwordPolicy.validate(null));
+
+        // 半角英数字以外
+        assertEquals(ErrorKinds.HALFSIZE_ERROR, passwordPolicy.validate("abcd-1234"));
+        assertEquals(ErrorKinds.HALFSIZE_ERROR, passwordPolicy.validate("ａｂｃｄ１２３４"));
+        assertEquals(ErrorKinds.HALFSIZE_ERROR, passwordPolicy.validate("テスト"));
+
+        // 8文字未満、16文字超
+        assertEquals(ErrorKinds.RANGECHECK_ERROR, passwordPolicy.validate("abc1234"));
+        assertEquals(ErrorKinds.RANGECHECK_ERROR, passwordPolicy.validate("ABCDEFGH123456789"));
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.techacademy.dto.ReportListItem;
+import com.techacademy.service.ReportImportResult.RowError;
+
+// バッチ更新の区切りをまたぐ場合も確認するため、2件ずつ登録する
+@SpringBootTest(properties = "report.import.batch-size=2")
+@ExtendWith(SpringExtension.class)
+class ReportImportServiceTest {
+
+    @Autowired
+    private ReportImportService reportImportService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 登録済みの確認の後に別の処理が登録した場合を再現するため、確認のクエリに割り込む
+    @SpyBean
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM reports WHERE report_date BETWEEN '2000-02-01' AND '2000-02-28'");
+    }
+
+    // CSV 正しい行だけが登録され、それ以外は行番号付きのエラーになること
+    @Test
+    void testImportCsv() throws IOException {
+        String csv = "\uFEFFemployee_code,report_date,title,content\n"
+                + "2,2000-02-01,タイトル,内容\n"
+                + "2,2000-02-01,重複,ファイル内で重複\n"
+                + "2," + LocalDate.now() + ",登録済み,初期データと重複\n"
+                + "9,2000-02-02,タイトル,存在しない社員番号\n"
+                + "2,2000-02-03,,タイトルなし\n"
+                + "2,2000/02/04,タイトル,日付の形式\n"
+                + "1,2000-02-05,\"タイトル, カンマ\",\"内容\n改行\"\n";
+
+        ReportImportResult result = reportImportService.importReports(input(csv), ReportImportService.Format.CSV);
+
+        assertEquals(7, result.getTotal());
+        assertEquals(2, result.getImported());
+        assertEquals(5, result.getErrorCount());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L),
+                result.getErrors().stream().map(RowError::getLine).sorted().collect(Collectors.toList()));
+        assertEquals("既に登録されている日付です", message(result, 4));
+        assertEquals("タイトル: 値を入力してください", message(result, 6));
+
+        // 登録した日報が一覧に表示されること(クエリキャッシュが破棄されていること)
+        List<ReportListItem> imported = reportService.getReportPage("1", false, null, null, 20).stream()
+                .filter(report -> "タイトル, カンマ".equals(report.title())).collect(Collectors.toList());
+        assertEquals(1, imported.size());
+        assertEquals("内容\n改行", reportService.getReportById(imported.get(0).id()).getContent());
+    }
+
+    // CSV ヘッダーがない場合は登録しないこと
+    @Test
+    void testImportCsvWithoutHeader() throws IOException {
+        ReportImportResult result = reportImportService.importReports(input("2,2000-02-01,タイトル,内容\n"),
+                ReportImportService.Format.CSV);
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getErrorCount());
+    }
+
+    // JSON 途中で形式が崩れている場合は、それまでの日報を登録すること
+    @Test
+    void testImportJson() throws IOException {
+        String json = "[{\"employeeCode\": \"2\", \"reportDate\": \"2000-02-01\", \"title\": \"タイトル\", \"content\": \"内容\"},"
+                + " {\"employeeCode\": 1, \"reportDate\": \"2000-02-02\", \"title\": \"タイトル\", \"content\": \"内容\"},"
+                + " {\"employeeCode\": \"2\", \"reportDate\": \"2000-02-03\", \"title\": \"" + "あ".repeat(101) + "\", \"content\": \"内容\"},"
+                + " {\"employeeCode\": \"2\", \"reportDate\": ";
+
+        ReportImportResult result = reportImportService.importReports(input(json), ReportImportService.Format.JSON);
+
+        assertEquals(3, result.getTotal());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getErrorCount());
+        assertEquals("タイトル: 100文字以下で入力してください", message(result, 3));
+        assertEquals("JSONの形式が正しくありません", message(result, 4));
+    }
+
+    // 登録済みの確認の後に同じ日付の日報が登録された場合、その行だけがエラーになり、残りは登録されること
+    @Test
+    void testImportCsvWithConcurrentInsert() throws IOException {
+        // 最初の登録済みの確認の直後に、別の処理が 2000-02-02 の日報を登録する
+        AtomicBoolean inserted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            if (inserted.compareAndSet(false, true)) {
+                jdbcTemplate.update("INSERT INTO reports(report_date, title, content, employee_code, delete_flg, created_at, updated_at)"
+                        + " VALUES ('2000-02-02', '同時に登録', '内容', '2', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+            }
+            return null;
+        }).when(namedParameterJdbcTemplate).query(startsWith("SELECT employee_code, report_date FROM reports"),
+                any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        String csv = "employee_code,report_date,title,content\n"
+                + "2,2000-02-01,タイトル,内容\n"
+                + "2,2000-02-02,タイトル,同時に登録された日付\n"
+                + "2,2000-02-03,タイトル,内容\n";
+
+        ReportImportResult result = reportImportService.importReports(input(csv), ReportImportService.Format.CSV);
+
+        assertEquals(3, result.getTotal());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getErrorCount());
+        assertEquals("既に登録されている日付です", message(result, 3));
+        assertEquals(List.of("2000-02-01", "2000-02-02", "2000-02-03"), jdbcTemplate.queryForList(
+                "SELECT report_date FROM reports WHERE employee_code = '2' AND report_date BETWEEN '2000-02-01' AND '2000-02-28'"
+                        + " ORDER BY report_date", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reports WHERE report_date = '2000-02-02' AND title = '同時に登録'", Integer.class));
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String message(ReportImportResult result, long line) {
+        return result.getErrors().stream().filter(error -> error.getLine() == line).findFirst().get().getMessage();
+    }
+}
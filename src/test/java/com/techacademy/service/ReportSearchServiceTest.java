@@ -0,0 +1,178 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.techacademy.entity.Report;
+import com.techacademy.repository.ReportRepository;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ReportSearchServiceTest {
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // テスト中に追加した日報(終了後に削除する)
+    private final List<Integer> addedReportIds = new ArrayList<Integer>();
+
+    @AfterEach
+    void afterEach() {
+        addedReportIds.forEach(id -> {
+            jdbcTemplate.update("DELETE FROM reports WHERE id = ?", id);
+            reportSearchService.delete(id);
+        });
+        addedReportIds.clear();
+    }
+
+    // 登録した日報がキーワードで検索でき、キーワードがハイライトされること
+    @Test
+    void testSearchAfterSave() throws IOException {
+        Integer id = addReport("2", LocalDate.of(2000, 1, 1), "週次の定例会議", "全文検索の動作確認を行いました");
+
+        ReportSearchResult result = reportSearchService.search("全文検索", null, 0, 20);
+
+        assertEquals(1, result.getTotal());
+        assertTrue(result.isTotalExact());
+        ReportSearchResult.Hit hit = result.getHits().get(0);
+        assertEquals(id, hit.getReport().id());
+        assertEquals("<mark>全文</mark><mark>検索</mark>の動作確認を行いました", hit.getContentHighlight());
+        assertEquals("週次の定例会議", hit.getTitleHighlight());
+    }
+
+    // 一般ユーザーは自分の日報のみ検索できること
+    @Test
+    void testSearchScopedByEmployee() throws IOException {
+        addReport("1", LocalDate.of(2000, 1, 1), "全文検索", "管理者の日報");
+        Integer own = addReport("2", LocalDate.of(2000, 1, 1), "全文検索", "一般ユーザーの日報");
+
+        assertEquals(2, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+        ReportSearchResult result = reportSearchService.search("全文検索", "2", 0, 20);
+        assertEquals(1, result.getTotal());
+        assertEquals(own, result.getHits().get(0).getReport().id());
+    }
+
+    // 更新・削除がインデックスに反映されること
+    @Test
+    void testUpdateAndDelete() throws IOException {
+        Integer id = addReport("2", LocalDate.of(2000, 1, 1), "タイトル", "全文検索の確認");
+
+        Report report = reportService.getReport(id);
+        report.setContent("形態素解析の確認");
+        reportService.update(report);
+        assertEquals(0, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+        assertEquals(1, reportSearchService.search("形態素解析", null, 0, 20).getTotal());
+
+        reportService.deleteReportById(id);
+        assertEquals(0, reportSearchService.search("形態素解析", null, 0, 20).getTotal());
+    }
+
+    // ページごとに取得でき、次ページの有無が分かること
+    @Test
+    void testSearchPaging() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            addReport("2", LocalDate.of(2000, 1, 1).plusDays(i), "タイトル" + i, "全文検索の確認" + i);
+        }
+
+        ReportSearchResult first = reportSearchService.search("全文検索", null, 0, 3);
+        assertEquals(3, first.getHits().size());
+        assertTrue(first.isHasNext());
+        ReportSearchResult second = reportSearchService.search("全文検索", null, 1, 3);
+        assertEquals(2, second.getHits().size());
+        assertFalse(second.isHasNext());
+    }
+
+    // 再構築すると、DBの削除されていない日報がすべて登録されること
+    @Test
+    void testRebuild() throws IOException {
+        addReport("2", LocalDate.of(2000, 1, 1), "タイトル", "全文検索の確認");
+
+        assertEquals(reportRepository.countByDeleteFlgFalse(), reportSearchService.rebuild());
+        assertEquals(1, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+    }
+
+    // 再構築中の更新・削除は再構築の後に反映され、重複して登録されないこと
+    @Test
+    void testChangedWhileRebuilding() throws IOException {
+        Integer updated = addReport("2", LocalDate.of(2000, 1, 1), "タイトル", "全文検索の確認");
+        Integer deleted = addReport("2", LocalDate.of(2000, 1, 2), "タイトル", "全文検索の確認");
+
+        // 再構築中の状態で更新・削除する(検索結果にもディスクにもまだ反映しない)
+        AtomicBoolean rebuilding = (AtomicBoolean) ReflectionTestUtils.getField(reportSearchService, "rebuilding");
+        rebuilding.set(true);
+        try {
+            Report report = reportService.getReport(updated);
+            report.setContent("形態素解析の確認");
+            reportService.update(report);
+            reportService.deleteReportById(deleted);
+            assertEquals(2, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+        } finally {
+            rebuilding.set(false);
+        }
+        ReflectionTestUtils.invokeMethod(reportSearchService, "reindexChangedWhileRebuilding");
+
+        assertEquals(0, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+        assertEquals(1, reportSearchService.search("形態素解析", null, 0, 20).getTotal());
+
+        // 再構築しても同じ日報が重複しないこと
+        reportSearchService.rebuild();
+        assertEquals(1, reportSearchService.search("形態素解析", null, 0, 20).getTotal());
+    }
+
+    // 再構築に失敗した場合は元のインデックスに戻り、その後の更新で空や途中までのインデックスが反映されないこと
+    @Test
+    void testRebuildFailure() throws IOException {
+        addReport("2", LocalDate.of(2000, 1, 1), "タイトル", "全文検索の確認");
+
+        // 日報の読み込みを失敗させる(全件の削除の後)
+        Object fetchSize = ReflectionTestUtils.getField(reportSearchService, "fetchSize");
+        ReflectionTestUtils.setField(reportSearchService, "fetchSize", -1);
+        try {
+            assertEquals(-1, reportSearchService.rebuild());
+        } finally {
+            ReflectionTestUtils.setField(reportSearchService, "fetchSize", fetchSize);
+        }
+        assertEquals(1, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+
+        addReport("2", LocalDate.of(2000, 1, 2), "タイトル", "形態素解析の確認");
+        assertEquals(1, reportSearchService.search("全文検索", null, 0, 20).getTotal());
+        assertEquals(1, reportSearchService.search("形態素解析", null, 0, 20).getTotal());
+    }
+
+    private Integer addReport(String employeeCode, LocalDate reportDate, String title, String content) {
+        Report report = new Report();
+        report.setReportDate(reportDate);
+        report.setTitle(title);
+        report.setContent(content);
+        report.setEmployeeCode(employeeCode);
+        report.setDeleteFlg(false);
+        reportService.saveReport(report);
+        addedReportIds.add(report.getId());
+        return report.getId();
+    }
+}
@@ -0,0 +1,157 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.techacademy.dto.ReportListItem;
+import com.techacademy.entity.Report;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ReportServiceTest {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SessionFactory sessionFactory;
+
+    // テスト中に追加した日報(終了後に削除する)
+    private final List<Integer> addedReportIds = new ArrayList<Integer>();
+
+    @BeforeEach
+    void beforeEach() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        // 論理削除した日報も含めて物理削除する
+        addedReportIds.forEach(id -> jdbcTemplate.update("DELETE FROM reports WHERE id = ?", id));
+        addedReportIds.clear();
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    // 2回目の取得は2次キャッシュから返し、SQLを発行しないこと
+    @Test
+    void testGetReportByIdCache() {
+        Integer id = addReport("2", LocalDate.of(2000, 1, 1));
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        assertNotNull(reportService.getReportById(id));
+        long statements = statistics.getPrepareStatementCount();
+        assertNotNull(reportService.getReportById(id));
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Report.class.getName());
+        assertEquals(1, region.getMissCount());
+        assertEquals(1, region.getHitCount());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    // 論理削除した日報は、キャッシュに載っていても取得できないこと
+    @Test
+    void testDeleteReportEvictsCache() {
+        Integer id = addReport("2", LocalDate.of(2000, 1, 1));
+        assertNotNull(reportService.getReportById(id));
+
+        reportService.deleteReportById(id);
+
+        assertNull(reportService.getReportById(id));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reports WHERE id = ? AND delete_flg = 1", Long.class, id));
+    }
+
+    // 一般ユーザーの一覧1ページ目はクエリキャッシュから返し、日報が追加されたら取り直すこと
+    @Test
+    void testReportPageQueryCache() {
+        Statistics statistics = sessionFactory.getStatistics();
+        int size = reportService.getReportPage("2", false, null, null, 20).getNumberOfElements();
+
+        statistics.clear();
+        reportService.getReportPage("2", false, null, null, 20);
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        addReport("2", LocalDate.of(2000, 1, 1));
+        statistics.clear();
+        Slice<ReportListItem> page = reportService.getReportPage("2", false, null, null, 20);
+        assertEquals(0, statistics.getQueryCacheHitCount());
+        assertEquals(size + 1, page.getNumberOfElements());
+    }
+
+    // 同じ社員・同じ日付の日報があるかどうか(更新時は自身を除く)
+    @Test
+    void testIsReportDateDuplicate() {
+        Integer id = addReport("2", LocalDate.of(2000, 1, 1));
+
+        assertTrue(reportService.isReportDateDuplicate("2", LocalDate.of(2000, 1, 1)));
+        assertFalse(reportService.isReportDateDuplicate("1", LocalDate.of(2000, 1, 1)));
+        assertFalse(reportService.isReportDateDuplicate("2", LocalDate.of(2000, 1, 2)));
+        assertFalse(reportService.isReportDateDuplicate("2", LocalDate.of(2000, 1, 1), id));
+    }
+
+    // チェックをすり抜けた重複はDBの一意制約でエラーになること 論理削除した日報とは重複しないこと
+    @Test
+    void testReportDateUniqueConstraint() {
+        Integer id = addReport("2", LocalDate.of(2000, 1, 1));
+
+        assertThrows(DataIntegrityViolationException.class, () -> addReport("2", LocalDate.of(2000, 1, 1)));
+
+        reportService.deleteReportById(id);
+        addReport("2", LocalDate.of(2000, 1, 1));
+        addReport("2", LocalDate.of(2000, 1, 2));
+        reportService.deleteReportById(addedReportIds.get(addedReportIds.size() - 1));
+        Integer updated = addReport("2", LocalDate.of(2000, 1, 3));
+        Report report = reportService.getReport(updated);
+        report.setReportDate(LocalDate.of(2000, 1, 2));
+        reportService.update(report);
+
+        report.setReportDate(LocalDate.of(2000, 1, 1));
+        assertThrows(DataIntegrityViolationException.class, () -> reportService.update(report));
+    }
+
+    private Integer addReport(String employeeCode, LocalDate reportDate) {
+        Report report = new Report();
+        report.setReportDate(reportDate);
+        report.setTitle("テストタイトル");
+        report.setContent("テスト内容");
+        report.setEmployeeCode(employeeCode);
+        report.setDeleteFlg(false);
+        reportService.saveReport(report);
+        addedReportIds.add(report.getId());
+        return report.getId();
+    }
+}
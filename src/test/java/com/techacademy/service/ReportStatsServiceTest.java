@@ -0,0 +1,145 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.techacademy.entity.Employee;
+import com.techacademy.entity.Report;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ReportStatsServiceTest {
+
+    // 他のテストの日報と重ならない月
+    private static final YearMonth MONTH = YearMonth.of(1999, 3);
+
+    @Autowired
+    private ReportStatsService reportStatsService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // テスト中に追加した日報(終了後に削除する)
+    private final List<Report> addedReports = new ArrayList<Report>();
+
+    @AfterEach
+    void afterEach() {
+        addedReports.forEach(report -> {
+            jdbcTemplate.update("DELETE FROM reports WHERE id = ?", report.getId());
+            reportStatsService.refresh(report.getEmployeeCode(), report.getReportDate(), MONTH.atDay(1),
+                    MONTH.plusMonths(1).atDay(1));
+        });
+        addedReports.clear();
+    }
+
+    // 登録すると提出した日として数えられ、集計テーブルにも保存されること
+    @Test
+    void testRefreshOnSave() {
+        addReport("2", MONTH.atDay(1));
+        addReport("2", MONTH.atDay(31));
+
+        EmployeeMonthStats stats = getMonthStats("2");
+        assertEquals(2, stats.getCount());
+        assertTrue(stats.isSubmitted(1));
+        assertTrue(stats.isSubmitted(31));
+        assertFalse(stats.isSubmitted(2));
+        assertEquals(2, reportStatsService.countSubmittedDays("2", MONTH.atDay(1), MONTH.atEndOfMonth()));
+        assertEquals(1, reportStatsService.countSubmittedDays("2", MONTH.atDay(2), MONTH.atEndOfMonth()));
+        assertEquals(1 | 1 << 30, jdbcTemplate.queryForObject(
+                "SELECT day_bits FROM report_monthly_stats WHERE employee_code = '2' AND target_month = 199903", Integer.class));
+    }
+
+    // 日付を別の月に変更すると変更前・変更後の両方の月に反映され、削除すると数えられないこと
+    @Test
+    void testRefreshOnUpdateAndDelete() {
+        Report report = reportService.getReport(addReport("2", MONTH.atDay(10)).getId());
+        report.setReportDate(MONTH.plusMonths(1).atDay(5));
+        reportService.update(report);
+
+        assertEquals(0, getMonthStats("2").getCount());
+        assertEquals(1, reportStatsService.countSubmittedDays("2", MONTH.plusMonths(1).atDay(1), MONTH.plusMonths(1).atDay(5)));
+
+        reportService.deleteReportById(report.getId());
+        assertEquals(0, reportStatsService.countSubmittedDays("2", MONTH.atDay(1), MONTH.plusMonths(1).atEndOfMonth()));
+    }
+
+    // 再構築すると日報テーブルから同じ集計が作られること
+    @Test
+    void testRebuild() {
+        addReport("1", MONTH.atDay(3));
+        addReport("2", MONTH.atDay(3));
+        addReport("2", MONTH.atDay(4));
+        // 日報テーブルを直接変更した場合は再構築するまで反映されない
+        jdbcTemplate.update("UPDATE reports SET report_date = ? WHERE id = ?", MONTH.atDay(5), addedReports.get(2).getId());
+
+        reportStatsService.rebuild();
+
+        assertEquals(1, getMonthStats("1").getCount());
+        EmployeeMonthStats stats = getMonthStats("2");
+        assertEquals(2, stats.getCount());
+        assertTrue(stats.isSubmitted(5));
+        assertFalse(stats.isSubmitted(4));
+    }
+
+    // 1970年より前の日報は数えず、1970年1月の集計も変わらないこと
+    @Test
+    void testBeforeEpoch() {
+        addReport("2", LocalDate.of(1970, 1, 1));
+        addReport("2", LocalDate.of(1969, 12, 15));
+
+        YearMonth january = YearMonth.of(1970, 1);
+        EmployeeMonthStats stats = reportStatsService.getMonthStats(List.of(employeeService.findByCode("2")), january).get(0);
+        assertEquals(1, stats.getCount());
+        assertTrue(stats.isSubmitted(1));
+        assertFalse(stats.isSubmitted(15));
+        assertEquals(0, reportStatsService.getMonthStats(List.of(employeeService.findByCode("2")), YearMonth.of(1969, 12))
+                .get(0).getCount());
+        assertEquals(0, reportStatsService.countSubmittedDays("2", LocalDate.of(1969, 12, 1), LocalDate.of(1969, 12, 31)));
+    }
+
+    // 平日で提出していない日と、週ごとの提出数
+    @Test
+    void testMissingDaysAndWeeklyCounts() {
+        // 1999-03-01 は月曜日
+        EmployeeMonthStats stats = new EmployeeMonthStats(new Employee(), MONTH, 1 | 1 << 2 | 1 << 7);
+
+        assertEquals(List.of(2, 4, 5), stats.getMissingDays(MONTH.atDay(7)));
+        assertEquals(List.of(2, 1, 0, 0, 0), stats.getWeeklyCounts());
+    }
+
+    private EmployeeMonthStats getMonthStats(String employeeCode) {
+        return reportStatsService.getMonthStats(List.of(employeeService.findByCode(employeeCode)), MONTH).get(0);
+    }
+
+    private Report addReport(String employeeCode, LocalDate reportDate) {
+        Report report = new Report();
+        report.setReportDate(reportDate);
+        report.setTitle("タイトル");
+        report.setContent("内容");
+        report.setEmployeeCode(employeeCode);
+        report.setDeleteFlg(false);
+        reportService.saveReport(report);
+        addedReports.add(report);
+        return report;
+    }
+}